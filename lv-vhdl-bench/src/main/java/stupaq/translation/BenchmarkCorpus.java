@@ -0,0 +1,87 @@
+package stupaq.translation;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+
+import stupaq.translation.parsing.DesignFilesParser;
+import stupaq.translation.parsing.ParsedFilesCache;
+import stupaq.vhdl93.ast.design_file;
+
+/**
+ * Projects from the examples directory used as inputs of benchmarks. The directory can be changed
+ * with the {@value #EXAMPLES_PROPERTY} property of the benchmark JVM.
+ */
+public final class BenchmarkCorpus {
+  public static final String EXAMPLES_PROPERTY = "bench.examples";
+  private static final String VHDL_GLOB = "*.vhd";
+
+  private BenchmarkCorpus() {
+  }
+
+  public static Path examples() {
+    return Paths.get(System.getProperty(EXAMPLES_PROPERTY, "examples"));
+  }
+
+  /** Returns design files of a project in a stable order. */
+  public static List<Path> files(String project) throws IOException {
+    List<Path> files = Lists.newArrayList();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(examples().resolve(project),
+        VHDL_GLOB)) {
+      for (Path file : stream) {
+        files.add(file);
+      }
+    }
+    Collections.sort(files);
+    if (files.isEmpty()) {
+      throw new IOException("No design files in project: " + project);
+    }
+    return files;
+  }
+
+  public static design_file parse(String project) throws IOException {
+    return new DesignFilesParser(1, Optional.<ParsedFilesCache>absent()).parse(files(project));
+  }
+
+  /** Returns contents of design files of a project, in the same order as {@link #files(String)}. */
+  public static List<byte[]> contents(String project) throws IOException {
+    List<byte[]> contents = Lists.newArrayList();
+    for (Path file : files(project)) {
+      contents.add(Files.readAllBytes(file));
+    }
+    return contents;
+  }
+
+  /** Removes outputs of a benchmark. */
+  public static void deleteRecursively(Path root) throws IOException {
+    if (!Files.exists(root)) {
+      return;
+    }
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Files.delete(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+        if (e != null) {
+          throw e;
+        }
+        Files.delete(dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+}
@@ -0,0 +1,81 @@
+package stupaq.translation.lv2vhdl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import stupaq.labview.VIPath;
+import stupaq.labview.scripting.ScriptingTools;
+import stupaq.labview.scripting.fake.FakeScriptingTools;
+import stupaq.translation.BenchmarkCorpus;
+import stupaq.translation.vhdl2lv.DesignFileEmitters;
+
+/**
+ * End-to-end lv2vhdl translation using fake scripting tools. VIs are produced once per trial by
+ * translating the project from the examples directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class TranslationContextBenchmark {
+  /** Root VIs of each project, as in the scripts from the examples directory. */
+  private static final Map<String, List<String>> ROOTS = ImmutableMap.<String, List<String>>of(
+      "stopwatch", ImmutableList.of("work.main(behavioral)", "work.debouncer(counter)"),
+      "features", ImmutableList.of("work.branch_and_merge(behavioral)",
+          "work.many_ports_outer(behavioral)", "work.process_outer(behavioral)",
+          "work.tiny(behavioral)"));
+
+  @Param({"stopwatch", "features"})
+  public String project;
+  @Param({"1"})
+  public int threads;
+  private ScriptingTools tools;
+  private Path vis;
+  private Path destination;
+  private List<VIPath> roots;
+
+  @Setup
+  public void setup() throws Exception {
+    tools = new FakeScriptingTools();
+    vis = Files.createTempDirectory("lv-" + project);
+    destination = Files.createTempDirectory("lv2vhdl-" + project);
+    DesignFileEmitters.emit(BenchmarkCorpus.parse(project), vis, tools);
+    roots = Lists.newArrayList();
+    for (String root : ROOTS.get(project)) {
+      roots.add(new VIPath(vis, root + ".vi"));
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    BenchmarkCorpus.deleteRecursively(vis);
+    BenchmarkCorpus.deleteRecursively(destination);
+  }
+
+  @Benchmark
+  public void translate() throws Exception {
+    TranslationContexts.translate(tools, roots, destination, threads);
+  }
+}
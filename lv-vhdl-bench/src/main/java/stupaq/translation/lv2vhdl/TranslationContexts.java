@@ -0,0 +1,29 @@
+package stupaq.translation.lv2vhdl;
+
+import com.google.common.base.Optional;
+
+import java.nio.file.Path;
+
+import stupaq.labview.VIPath;
+import stupaq.labview.scripting.ScriptingTools;
+import stupaq.translation.project.LVProjectReader;
+import stupaq.translation.project.VHDLProjectWriter;
+
+/** Runs lv2vhdl translation from benchmarks outside of this package. */
+public final class TranslationContexts {
+  private TranslationContexts() {
+  }
+
+  public static void translate(ScriptingTools tools, Iterable<VIPath> roots, Path destination,
+      int threads) throws Exception {
+    LVProjectReader projectFrom = new LVProjectReader(tools, roots);
+    try (VHDLProjectWriter projectTo = new VHDLProjectWriter(destination);
+         TranslationContext context = new TranslationContext(projectFrom, projectTo, threads,
+             Optional.<InterfaceDeclarationStore>absent())) {
+      context.prefetch(roots);
+      while (projectFrom.hasNext()) {
+        context.translate(projectFrom.next());
+      }
+    }
+  }
+}
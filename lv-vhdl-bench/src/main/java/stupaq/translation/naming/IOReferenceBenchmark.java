@@ -0,0 +1,65 @@
+package stupaq.translation.naming;
+
+import com.google.common.collect.Sets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import stupaq.translation.BenchmarkCorpus;
+import stupaq.vhdl93.VHDL93ParserTotal;
+import stupaq.vhdl93.ast.identifier;
+import stupaq.vhdl93.visitor.DepthFirstVisitor;
+
+/**
+ * Turns every distinct reference of a project back into an identifier node, either by assembling
+ * the node directly or by parsing the reference, which is how it used to be done.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class IOReferenceBenchmark {
+  @Param({"stopwatch", "features"})
+  public String project;
+  private final Set<IOReference> references = Sets.newLinkedHashSet();
+
+  @Setup
+  public void setup() throws Exception {
+    BenchmarkCorpus.parse(project).accept(new DepthFirstVisitor() {
+      @Override
+      public void visit(identifier n) {
+        references.add(IOReference.of(n));
+      }
+    });
+  }
+
+  @Benchmark
+  public void direct(Blackhole blackhole) {
+    for (IOReference reference : references) {
+      blackhole.consume(reference.asIdentifier());
+    }
+  }
+
+  @Benchmark
+  public void parsed(Blackhole blackhole) throws Exception {
+    for (IOReference reference : references) {
+      blackhole.consume(new VHDL93ParserTotal(new StringReader(reference.toString())).identifier());
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package stupaq.translation.parsing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import stupaq.translation.BenchmarkCorpus;
+import stupaq.vhdl93.ast.Node;
+import stupaq.vhdl93.ast.design_file;
+import stupaq.vhdl93.ast.design_unit;
+
+/**
+ * Renders and duplicates every design unit of a project. Duplicating by a structural copy is
+ * compared with printing and parsing again, which is how nodes used to be duplicated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class NodeReprBenchmark {
+  @Param({"stopwatch", "features"})
+  public String project;
+  private design_file root;
+
+  @Setup
+  public void setup() throws Exception {
+    root = BenchmarkCorpus.parse(project);
+  }
+
+  @Benchmark
+  public void repr(Blackhole blackhole) {
+    for (Node unit : root.nodeList.nodes) {
+      blackhole.consume(NodeRepr.repr(unit));
+    }
+  }
+
+  @Benchmark
+  public void duplicate(Blackhole blackhole) {
+    for (Node unit : root.nodeList.nodes) {
+      blackhole.consume(NodeRepr.duplicate((design_unit) unit));
+    }
+  }
+
+  @Benchmark
+  public void reparse(Blackhole blackhole) throws Exception {
+    Method production = VHDL93ParserPartial.class.getMethod(design_unit.class.getSimpleName());
+    for (Node unit : root.nodeList.nodes) {
+      blackhole.consume(production.invoke(NodeRepr.repr(unit).as()));
+    }
+  }
+}
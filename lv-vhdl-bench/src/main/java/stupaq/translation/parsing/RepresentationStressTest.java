@@ -0,0 +1,140 @@
+package stupaq.translation.parsing;
+
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import stupaq.translation.BenchmarkCorpus;
+import stupaq.vhdl93.ast.NodeToken;
+import stupaq.vhdl93.ast.SimpleNode;
+import stupaq.vhdl93.ast.design_file;
+import stupaq.vhdl93.ast.design_unit;
+import stupaq.vhdl93.ast.expression;
+import stupaq.vhdl93.ast.process_statement;
+import stupaq.vhdl93.visitor.DepthFirstVisitor;
+
+/**
+ * Renders overlapping subtrees of a project from many threads at once and verifies that every
+ * rendering is identical to the sequential one and that token positions in the tree are intact.
+ *
+ * <p>Usage: {@code <project> [<threads> [<rounds>]]}, exits with non-zero status on failure.</p>
+ */
+public class RepresentationStressTest {
+  private final List<SimpleNode> nodes = Lists.newArrayList();
+  private final List<String> expected = Lists.newArrayList();
+  private final List<NodeToken> tokens = Lists.newArrayList();
+  private final List<int[]> positions = Lists.newArrayList();
+
+  public RepresentationStressTest(design_file root) {
+    new NodesCollector().collect(root);
+    // Positions are recorded before anything is rendered.
+    for (NodeToken token : tokens) {
+      positions.add(position(token));
+    }
+    for (SimpleNode node : nodes) {
+      expected.add(node.representation());
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.out.println("usage: <project> [<threads> [<rounds>]]");
+      return;
+    }
+    int threads = args.length > 1 ? Integer.valueOf(args[1]) : 16;
+    int rounds = args.length > 2 ? Integer.valueOf(args[2]) : 8;
+    RepresentationStressTest test = new RepresentationStressTest(BenchmarkCorpus.parse(args[0]));
+    int failures = test.run(threads, rounds);
+    System.out.printf("%d nodes rendered by %d threads %d times, %d mismatches%n",
+        test.nodes.size(), threads, rounds, failures);
+    if (failures > 0) {
+      System.exit(1);
+    }
+  }
+
+  private static int[] position(NodeToken token) {
+    return new int[]{token.beginLine, token.beginColumn, token.endLine, token.endColumn};
+  }
+
+  public int run(int threads, final int rounds) throws Exception {
+    final AtomicInteger failures = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> futures = Lists.newArrayList();
+      for (int thread = 0; thread < threads; ++thread) {
+        final Random random = new Random(thread);
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            List<Integer> order = Lists.newArrayList();
+            for (int i = 0; i < nodes.size(); ++i) {
+              order.add(i);
+            }
+            for (int round = 0; round < rounds; ++round) {
+              // Every thread renders shared subtrees in a different order.
+              Collections.shuffle(order, random);
+              for (int i : order) {
+                if (!expected.get(i).equals(nodes.get(i).representation())) {
+                  failures.incrementAndGet();
+                }
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    for (int i = 0; i < tokens.size(); ++i) {
+      int[] position = position(tokens.get(i));
+      if (!Arrays.equals(positions.get(i), position)) {
+        failures.incrementAndGet();
+      }
+    }
+    return failures.get();
+  }
+
+  private class NodesCollector extends DepthFirstVisitor {
+    public void collect(design_file root) {
+      root.accept(this);
+    }
+
+    @Override
+    public void visit(design_unit n) {
+      nodes.add(n);
+      super.visit(n);
+    }
+
+    @Override
+    public void visit(process_statement n) {
+      nodes.add(n);
+      super.visit(n);
+    }
+
+    @Override
+    public void visit(expression n) {
+      nodes.add(n);
+      super.visit(n);
+    }
+
+    @Override
+    public void visit(NodeToken n) {
+      tokens.add(n);
+      if (n.specialTokens != null) {
+        tokens.addAll(n.specialTokens);
+      }
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package stupaq.translation.parsing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import stupaq.vhdl93.ast.Node;
+
+import static stupaq.translation.parsing.VHDL93ParserPartial.Parsers.forString;
+
+/**
+ * Compares the reflective parser proxy with direct production handles and memoized parsing on
+ * typical snippets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class SnippetParserBenchmark {
+  @Param({"identifier", "expression", "interface_signal_declaration", "constant_declaration"})
+  public String production;
+  private String snippet;
+  private Production<?> handle;
+
+  @Setup
+  public void setup() {
+    switch (production) {
+      case "identifier":
+        snippet = "clk_enable";
+        handle = Production.IDENTIFIER;
+        break;
+      case "expression":
+        snippet = "(a and not b) or (counter(7 downto 0) = x\"ff\")";
+        handle = Production.EXPRESSION;
+        break;
+      case "interface_signal_declaration":
+        snippet = "signal data : in std_logic_vector(WIDTH - 1 downto 0)";
+        handle = Production.INTERFACE_SIGNAL_DECLARATION;
+        break;
+      case "constant_declaration":
+        snippet = "constant LIMIT : integer := 16#7F# * 2;";
+        handle = Production.CONSTANT_DECLARATION;
+        break;
+      default:
+        throw new IllegalArgumentException(production);
+    }
+  }
+
+  @Benchmark
+  public Node proxy() {
+    VHDL93ParserPartial parser = forString(snippet);
+    switch (production) {
+      case "identifier":
+        return parser.identifier();
+      case "expression":
+        return parser.expression();
+      case "interface_signal_declaration":
+        return parser.interface_signal_declaration();
+      case "constant_declaration":
+        return parser.constant_declaration();
+      default:
+        throw new IllegalArgumentException(production);
+    }
+  }
+
+  @Benchmark
+  public Node handle() throws Exception {
+    return SnippetParser.parseUncached(snippet, handle);
+  }
+
+  @Benchmark
+  public Node cached() {
+    return SnippetParser.parse(snippet, handle);
+  }
+}
@@ -0,0 +1,177 @@
+package stupaq.translation.scaling;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes synthetic VHDL projects of a given size. Entities are arranged in levels, each entity
+ * instantiates entities of the next level and entities of the last level consist of processes only.
+ * All entities share the same interface, which is clustered if it has more ports than any connector
+ * pane pattern can accommodate.
+ */
+public class DesignGenerator {
+  /** Number of inputs of the widest connector pane pattern (P4835), which has 28 connectors. */
+  private static final int WIDEST_PATTERN_INPUTS = 15;
+  /** The generic, clock and reset are inputs of every entity besides input ports. */
+  private static final int FIXED_INPUTS = 3;
+  /** Fewest input ports for which no connector pane pattern fits and every VI is clustered. */
+  public static final int CLUSTERED_INPUTS = WIDEST_PATTERN_INPUTS - FIXED_INPUTS + 1;
+  private static final int OUTPUTS = 2;
+  private static final String EXTENSION = ".vhd";
+  private final int entities;
+  private final int instances;
+  private final int processes;
+  private final int inputs;
+  private final int depth;
+
+  /**
+   * @param entities total number of entities
+   * @param instances number of instances in each non-leaf architecture
+   * @param processes number of processes in each leaf architecture
+   * @param inputs number of input ports of each entity, outputs are fixed
+   * @param depth number of levels of the hierarchy
+   */
+  public DesignGenerator(int entities, int instances, int processes, int inputs, int depth) {
+    Preconditions.checkArgument(depth >= 1 && entities >= depth, "Not enough entities.");
+    Preconditions.checkArgument(instances >= 1 && processes >= 0 && inputs >= OUTPUTS);
+    this.entities = entities;
+    this.instances = instances;
+    this.processes = processes;
+    this.inputs = inputs;
+    this.depth = depth;
+  }
+
+  /** Returns true if interfaces of generated entities are clustered. */
+  public boolean isClustered() {
+    return inputs >= CLUSTERED_INPUTS;
+  }
+
+  private static String entityName(int level, int index) {
+    return "e" + level + "_" + index;
+  }
+
+  /** Top level entity gets its own level, remaining ones are split evenly between other levels. */
+  private int levelSize(int level) {
+    if (depth == 1) {
+      return entities;
+    } else if (level == 0) {
+      return 1;
+    }
+    int rest = entities - 1, levels = depth - 1;
+    return rest / levels + (level - 1 < rest % levels ? 1 : 0);
+  }
+
+  /** Writes all design files to provided directory, returns their paths. */
+  public List<Path> write(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    List<Path> files = Lists.newArrayList();
+    for (int level = 0; level < depth; ++level) {
+      for (int index = 0, size = levelSize(level); index < size; ++index) {
+        Path file = directory.resolve("work-" + entityName(level, index) + EXTENSION);
+        try (PrintWriter writer = new PrintWriter(
+            Files.newBufferedWriter(file, StandardCharsets.US_ASCII))) {
+          writeEntity(writer, level, index);
+        }
+        files.add(file);
+      }
+    }
+    return files;
+  }
+
+  /** Returns names of all architectures, as they appear in names of VIs. */
+  public List<String> architectures() {
+    List<String> names = Lists.newArrayList();
+    for (int level = 0; level < depth; ++level) {
+      for (int index = 0, size = levelSize(level); index < size; ++index) {
+        names.add("work." + entityName(level, index) + "(behavioral)");
+      }
+    }
+    return names;
+  }
+
+  private void writeEntity(PrintWriter out, int level, int index) {
+    String name = entityName(level, index);
+    out.println("library ieee;");
+    out.println("use ieee.std_logic_1164.all;");
+    out.println();
+    out.println("entity " + name + " is");
+    out.println("    generic (gen : integer := 1);");
+    List<String> ports = Lists.newArrayList("clk : in std_logic", "rst : in std_logic");
+    for (int i = 0; i < inputs; ++i) {
+      ports.add("in" + i + " : in std_logic");
+    }
+    for (int i = 0; i < OUTPUTS; ++i) {
+      ports.add("out" + i + " : out std_logic");
+    }
+    out.println("    port (" + Joiner.on(";\n        ").join(ports) + ");");
+    out.println("end;");
+    out.println();
+    out.println("architecture behavioral of " + name + " is");
+    if (level + 1 < depth) {
+      writeStructure(out, level, index);
+    } else {
+      writeBehaviour(out);
+    }
+    out.println("end;");
+  }
+
+  private void writeStructure(PrintWriter out, int level, int index) {
+    for (int k = 0; k < instances; ++k) {
+      for (int o = 0; o < OUTPUTS; ++o) {
+        out.println("    signal s" + k + "_" + o + " : std_logic;");
+      }
+    }
+    out.println("begin");
+    int nextSize = levelSize(level + 1);
+    for (int k = 0; k < instances; ++k) {
+      String instantiated = entityName(level + 1, (index * instances + k) % nextSize);
+      List<String> associations = Lists.newArrayList("clk => clk", "rst => rst");
+      for (int i = 0; i < inputs; ++i) {
+        // Instances form a chain, the first one is driven by inputs of the entity.
+        String actual = k > 0 && i < OUTPUTS ? "s" + (k - 1) + "_" + i : "in" + i;
+        associations.add("in" + i + " => " + actual);
+      }
+      for (int o = 0; o < OUTPUTS; ++o) {
+        associations.add("out" + o + " => s" + k + "_" + o);
+      }
+      out.println("    inst" + k + " :");
+      out.println("    entity work." + instantiated + "(behavioral)");
+      out.println("        generic map(gen => gen)");
+      out.println("        port map(" + Joiner.on(",\n            ").join(associations) + ");");
+    }
+    for (int o = 0; o < OUTPUTS; ++o) {
+      out.println("    out" + o + " <= s" + (instances - 1) + "_" + o + ";");
+    }
+  }
+
+  private void writeBehaviour(PrintWriter out) {
+    for (int p = 0; p < processes; ++p) {
+      out.println("    signal r" + p + " : std_logic;");
+    }
+    out.println("begin");
+    for (int p = 0; p < processes; ++p) {
+      out.println("    process (clk) is");
+      out.println("    begin");
+      out.println("        if clk'event and clk = '1' then");
+      out.println("            if rst = '1' then");
+      out.println("                r" + p + " <= '0';");
+      out.println("            else");
+      out.println("                r" + p + " <= in" + p % inputs + " xor r" + p + ";");
+      out.println("            end if;");
+      out.println("        end if;");
+      out.println("    end process;");
+    }
+    for (int o = 0; o < OUTPUTS; ++o) {
+      String value = processes > 0 ? "r" + (processes - 1 - o % processes) : "in" + o;
+      out.println("    out" + o + " <= " + value + ";");
+    }
+  }
+}
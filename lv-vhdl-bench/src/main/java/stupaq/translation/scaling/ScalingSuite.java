@@ -0,0 +1,190 @@
+package stupaq.translation.scaling;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import stupaq.labview.VIPath;
+import stupaq.labview.scripting.ScriptingTools;
+import stupaq.labview.scripting.fake.FakeScriptingTools;
+import stupaq.translation.BenchmarkCorpus;
+import stupaq.translation.lv2vhdl.TranslationContexts;
+import stupaq.translation.parsing.DesignFilesParser;
+import stupaq.translation.parsing.ParsedFilesCache;
+import stupaq.translation.vhdl2lv.DesignFileEmitters;
+import stupaq.vhdl93.ast.design_file;
+
+/**
+ * Translates generated projects of growing size in both directions and reports time and peak heap
+ * usage of every phase. For each pair of consecutive size points the suite prints the exponent of
+ * growth of time, values noticeably above one indicate super-linear phases. Unless inputs are
+ * swept, entities have {@link DesignGenerator#CLUSTERED_INPUTS} inputs, so all VIs are clustered.
+ *
+ * <p>Usage: {@code <dimension> <points> [<lv2vhdl threads>]}, where dimension is one of: entities,
+ * instances, processes, inputs, depth and points is a comma separated list of sizes.</p>
+ */
+public class ScalingSuite {
+  private static final List<String> PHASES =
+      ImmutableList.of("generate", "parse", "vhdl2lv", "lv2vhdl");
+  private static final double SUPERLINEAR_EXPONENT = 1.2;
+  private static final double MEGABYTE = 1024 * 1024;
+  private final String dimension;
+  private final int threads;
+  private final ScriptingTools tools = new FakeScriptingTools();
+
+  public ScalingSuite(String dimension, int threads) {
+    this.dimension = dimension;
+    this.threads = threads;
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      System.out.println("usage: <dimension> <points> [<lv2vhdl threads>]");
+      return;
+    }
+    int threads = args.length > 2 ? Integer.valueOf(args[2]) : 1;
+    List<Integer> points = Lists.newArrayList();
+    for (String point : Splitter.on(',').trimResults().omitEmptyStrings().split(args[1])) {
+      points.add(Integer.valueOf(point));
+    }
+    new ScalingSuite(args[0], threads).run(points);
+  }
+
+  private DesignGenerator generator(int size) {
+    int entities = 16, instances = 4, processes = 4, depth = 3;
+    // Clustered interfaces are the more expensive ones to translate.
+    int inputs = DesignGenerator.CLUSTERED_INPUTS;
+    switch (dimension) {
+      case "entities":
+        entities = size;
+        break;
+      case "instances":
+        instances = size;
+        break;
+      case "processes":
+        processes = size;
+        break;
+      case "inputs":
+        inputs = size;
+        break;
+      case "depth":
+        depth = size;
+        entities = Math.max(entities, size);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown dimension: " + dimension);
+    }
+    return new DesignGenerator(entities, instances, processes, inputs, depth);
+  }
+
+  public void run(List<Integer> points) throws Exception {
+    System.out.printf("%-10s %8s %10s %12s %10s %10s%n", "phase", dimension, "time [ms]",
+        "peak [MB]", "exponent", "clustered");
+    Map<String, Measurement> previous = Maps.newHashMap();
+    for (int size : points) {
+      boolean clustered = generator(size).isClustered();
+      Map<String, Measurement> current = measure(size);
+      for (String phase : PHASES) {
+        Measurement now = current.get(phase), before = previous.get(phase);
+        String exponent = "";
+        if (before != null && before.size != size && before.millis > 0) {
+          double value =
+              Math.log(now.millis / before.millis) / Math.log((double) size / before.size);
+          exponent = String.format("%.2f%s", value, value > SUPERLINEAR_EXPONENT ? " (!)" : "");
+        }
+        System.out.printf("%-10s %8d %10.1f %12.1f %10s %10s%n", phase, size, now.millis,
+            now.peakBytes / MEGABYTE, exponent, clustered ? "yes" : "no");
+      }
+      previous = current;
+    }
+  }
+
+  private Map<String, Measurement> measure(int size) throws Exception {
+    final DesignGenerator generator = generator(size);
+    final Path root = Files.createTempDirectory("scaling-" + dimension + "-" + size);
+    try {
+      final Path sources = root.resolve("vhdl"), vis = root.resolve("lv"),
+          output = root.resolve("vhdl2");
+      Map<String, Measurement> results = Maps.newHashMap();
+      final List<Path> files = Lists.newArrayList();
+      results.put("generate", measure(size, new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          files.addAll(generator.write(sources));
+          return null;
+        }
+      }));
+      final List<design_file> parsed = Lists.newArrayList();
+      results.put("parse", measure(size, new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          parsed.add(new DesignFilesParser(Optional.<ParsedFilesCache>absent()).parse(files));
+          return null;
+        }
+      }));
+      results.put("vhdl2lv", measure(size, new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          DesignFileEmitters.emit(parsed.remove(0), vis, tools);
+          return null;
+        }
+      }));
+      results.put("lv2vhdl", measure(size, new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          List<VIPath> roots = Lists.newArrayList();
+          for (String name : generator.architectures()) {
+            roots.add(new VIPath(vis, name + ".vi"));
+          }
+          TranslationContexts.translate(tools, roots, output, threads);
+          return null;
+        }
+      }));
+      return results;
+    } finally {
+      BenchmarkCorpus.deleteRecursively(root);
+    }
+  }
+
+  private Measurement measure(int size, Callable<Void> phase) throws Exception {
+    System.gc();
+    List<MemoryPoolMXBean> pools = Lists.newArrayList();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+        pools.add(pool);
+      }
+    }
+    long start = System.nanoTime();
+    phase.call();
+    double millis = (System.nanoTime() - start) / 1e6;
+    long peak = 0;
+    for (MemoryPoolMXBean pool : pools) {
+      peak += pool.getPeakUsage().getUsed();
+    }
+    return new Measurement(size, millis, peak);
+  }
+
+  private static class Measurement {
+    final int size;
+    final double millis;
+    final long peakBytes;
+
+    Measurement(int size, double millis, long peakBytes) {
+      this.size = size;
+      this.millis = millis;
+      this.peakBytes = peakBytes;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package stupaq.translation.vhdl2lv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import stupaq.labview.scripting.ScriptingTools;
+import stupaq.labview.scripting.fake.FakeScriptingTools;
+import stupaq.translation.BenchmarkCorpus;
+import stupaq.vhdl93.ast.NodeCopier;
+import stupaq.vhdl93.ast.design_file;
+
+/** End-to-end vhdl2lv translation of a parsed project using fake scripting tools. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class DesignFileEmitterBenchmark {
+  @Param({"stopwatch", "features"})
+  public String project;
+  private design_file parsed;
+  private design_file root;
+  private Path destination;
+  private ScriptingTools tools;
+
+  @Setup
+  public void setup() throws Exception {
+    parsed = BenchmarkCorpus.parse(project);
+    destination = Files.createTempDirectory("vhdl2lv-" + project);
+    tools = new FakeScriptingTools();
+  }
+
+  /** Translation rewrites the tree, each invocation works on a fresh copy. */
+  @Setup(Level.Invocation)
+  public void copy() {
+    root = NodeCopier.copy(parsed);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    BenchmarkCorpus.deleteRecursively(destination);
+  }
+
+  @Benchmark
+  public void translate() {
+    DesignFileEmitters.emit(root, destination, tools);
+  }
+}
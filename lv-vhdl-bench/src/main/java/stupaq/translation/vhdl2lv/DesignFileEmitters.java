@@ -0,0 +1,19 @@
+package stupaq.translation.vhdl2lv;
+
+import java.nio.file.Path;
+
+import stupaq.labview.scripting.ScriptingTools;
+import stupaq.translation.project.LVProject;
+import stupaq.vhdl93.ast.design_file;
+
+/** Runs vhdl2lv translation from benchmarks outside of this package. */
+public final class DesignFileEmitters {
+  private DesignFileEmitters() {
+  }
+
+  public static void emit(design_file root, Path destination, ScriptingTools tools) {
+    LVProject project = new LVProject(destination);
+    project.tools_$eq(tools);
+    root.accept(new DesignFileEmitter(project));
+  }
+}
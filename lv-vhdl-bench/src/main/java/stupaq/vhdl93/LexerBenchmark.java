@@ -0,0 +1,69 @@
+package stupaq.vhdl93;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import stupaq.translation.BenchmarkCorpus;
+
+/**
+ * Tokenizes all design files of a project concatenated the given number of times, so that large
+ * inputs can be simulated, with the default character stream and with the one which decodes the
+ * whole input at once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class LexerBenchmark {
+  @Param({"stopwatch", "features"})
+  public String project;
+  @Param({"1", "64"})
+  public int copies;
+  private byte[] content;
+
+  @Setup
+  public void setup() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (int i = 0; i < copies; ++i) {
+      for (byte[] file : BenchmarkCorpus.contents(project)) {
+        output.write(file);
+        output.write('\n');
+      }
+    }
+    content = output.toByteArray();
+  }
+
+  private static int tokenize(SimpleCharStream stream) {
+    VHDL93ParserTotalTokenManager lexer = new VHDL93ParserTotalTokenManager(stream);
+    int count = 0;
+    while (lexer.getNextToken().kind != VHDL93ParserTotalConstants.EOF) {
+      ++count;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int simpleCharStream() {
+    return tokenize(new SimpleCharStream(new ByteArrayInputStream(content)));
+  }
+
+  @Benchmark
+  public int charBufferCharStream() {
+    return tokenize(CharBufferCharStream.decode(content));
+  }
+}
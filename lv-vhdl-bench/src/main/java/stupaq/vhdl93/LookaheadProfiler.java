@@ -0,0 +1,128 @@
+package stupaq.vhdl93;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import stupaq.translation.BenchmarkCorpus;
+
+/**
+ * Counts tokens scanned by syntactic lookahead and tokens consumed, per production which makes the
+ * decision, while parsing all design files of the given projects. The parser must be generated
+ * with the {@code lookahead-profiling} profile, otherwise it does not trace anything.
+ *
+ * <p>Usage: {@code <project>...}</p>
+ */
+public class LookaheadProfiler extends OutputStream {
+  private static final String CALL = "Call:";
+  private static final String RETURN = "Return:";
+  private static final String VISITED = "Visited token:";
+  private static final String CONSUMED = "Consumed token:";
+  private static final String NONE = "<none>";
+  private final StringBuilder line = new StringBuilder();
+  private final Deque<String> productions = new ArrayDeque<>();
+  private final Map<String, ProductionStats> stats = Maps.newHashMap();
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.out.println("usage: <project>...");
+      return;
+    }
+    LookaheadProfiler profiler = new LookaheadProfiler();
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(profiler, false));
+    try {
+      for (String project : args) {
+        for (byte[] content : BenchmarkCorpus.contents(project)) {
+          VHDL93ParserTotal parser = CharBufferCharStream.decode(content).parser();
+          parser.enable_tracing();
+          parser.design_file();
+          parser.disable_tracing();
+        }
+      }
+    } finally {
+      System.out.flush();
+      System.setOut(out);
+    }
+    profiler.report(out);
+  }
+
+  @Override
+  public void write(int b) {
+    if (b == '\n') {
+      traced(line.toString().trim());
+      line.setLength(0);
+    } else {
+      line.append((char) b);
+    }
+  }
+
+  private void traced(String trace) {
+    if (trace.startsWith(CALL)) {
+      String production = trace.substring(CALL.length()).trim();
+      productions.push(production);
+      stats(production).calls++;
+    } else if (trace.startsWith(RETURN)) {
+      productions.poll();
+    } else if (trace.startsWith(VISITED)) {
+      stats(productions.isEmpty() ? NONE : productions.peek()).scanned++;
+    } else if (trace.startsWith(CONSUMED)) {
+      stats(productions.isEmpty() ? NONE : productions.peek()).consumed++;
+    }
+  }
+
+  private ProductionStats stats(String production) {
+    ProductionStats entry = stats.get(production);
+    if (entry == null) {
+      entry = new ProductionStats(production);
+      stats.put(production, entry);
+    }
+    return entry;
+  }
+
+  public void report(PrintStream out) {
+    if (stats.isEmpty()) {
+      out.println("No traces, generate the parser with: mvn -P lookahead-profiling package");
+      return;
+    }
+    List<ProductionStats> sorted = Lists.newArrayList(stats.values());
+    long scanned = 0, consumed = 0;
+    for (ProductionStats production : sorted) {
+      scanned += production.scanned;
+      consumed += production.consumed;
+    }
+    out.printf("%d tokens scanned by lookahead, %d tokens consumed%n", scanned, consumed);
+    out.printf("%-48s %10s %12s %12s %10s%n", "production", "calls", "consumed", "scanned",
+        "per call");
+    for (ProductionStats production : Ordering.<ProductionStats>natural().reverse()
+        .sortedCopy(sorted)) {
+      if (production.scanned == 0) {
+        break;
+      }
+      double perCall = production.calls == 0 ? 0 : (double) production.scanned / production.calls;
+      out.printf("%-48s %10d %12d %12d %10.2f%n", production.name, production.calls,
+          production.consumed, production.scanned, perCall);
+    }
+  }
+
+  private static class ProductionStats implements Comparable<ProductionStats> {
+    final String name;
+    long calls, scanned, consumed;
+
+    ProductionStats(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public int compareTo(ProductionStats other) {
+      return Long.compare(scanned, other.scanned);
+    }
+  }
+}
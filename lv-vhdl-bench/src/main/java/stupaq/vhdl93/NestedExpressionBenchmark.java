@@ -0,0 +1,73 @@
+package stupaq.vhdl93;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import stupaq.vhdl93.ast.design_file;
+
+/**
+ * Parses a design file with a concurrent and a sequential assignment of an expression nested to the
+ * given depth, which is where nested syntactic lookahead rescans the same tokens most.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class NestedExpressionBenchmark {
+  @Param({"parentheses", "aggregates", "operators"})
+  public String shape;
+  @Param({"4", "16", "64"})
+  public int depth;
+  private String source;
+
+  @Setup
+  public void setup() {
+    String expression = expression(shape, depth);
+    source = "entity nested is\nend entity nested;\n\n" +
+        "architecture benchmark of nested is\n  signal s : integer;\nbegin\n" +
+        "  s <= " + expression + ";\n" +
+        "  process is\n    variable v : integer;\n  begin\n" +
+        "    v := " + expression + ";\n    wait;\n  end process;\n" +
+        "end architecture benchmark;\n";
+  }
+
+  /** Returns an expression of the given shape nested to the given depth. */
+  public static String expression(String shape, int depth) {
+    StringBuilder prefix = new StringBuilder(), suffix = new StringBuilder();
+    for (int i = 0; i < depth; ++i) {
+      switch (shape) {
+        case "parentheses":
+          prefix.append('(');
+          break;
+        case "aggregates":
+          prefix.append('(').append(i).append(" => ");
+          break;
+        case "operators":
+          prefix.append("f(a) + (");
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown shape: " + shape);
+      }
+      suffix.append(')');
+    }
+    return prefix.append('x').append(suffix).toString();
+  }
+
+  @Benchmark
+  public design_file design_file() throws ParseException {
+    return CharBufferCharStream.of(source).parser().design_file();
+  }
+}
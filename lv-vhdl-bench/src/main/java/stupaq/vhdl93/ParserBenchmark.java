@@ -0,0 +1,44 @@
+package stupaq.vhdl93;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import stupaq.translation.BenchmarkCorpus;
+
+/** Parses all design files of a project with the full grammar. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+  @Param({"stopwatch", "features"})
+  public String project;
+  private List<byte[]> contents;
+
+  @Setup
+  public void setup() throws Exception {
+    contents = BenchmarkCorpus.contents(project);
+  }
+
+  @Benchmark
+  public void design_file(Blackhole blackhole) throws ParseException {
+    for (byte[] content : contents) {
+      blackhole.consume(CharBufferCharStream.decode(content).parser().design_file());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package stupaq.vhdl93;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import stupaq.translation.BenchmarkCorpus;
+import stupaq.vhdl93.ast.NodeToken;
+import stupaq.vhdl93.ast.design_file;
+import stupaq.vhdl93.visitor.DepthFirstVisitor;
+
+/**
+ * Compares heap retained by trees of a project parsed the given number of times, once with images
+ * shared by all tokens of a kind, as the parser creates them, and once with every token owning a
+ * copy of its image.
+ *
+ * <p>Usage: {@code <project> [<copies>]}, run with a fixed heap size for stable numbers.</p>
+ */
+public class TokenFootprint {
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.out.println("usage: <project> [<copies>]");
+      return;
+    }
+    int copies = args.length > 1 ? Integer.valueOf(args[1]) : 64;
+    List<byte[]> contents = BenchmarkCorpus.contents(args[0]);
+    long baseline = usedHeap();
+    List<design_file> trees = Lists.newArrayList();
+    for (int i = 0; i < copies; ++i) {
+      for (byte[] content : contents) {
+        trees.add(CharBufferCharStream.decode(content).parser().design_file());
+      }
+    }
+    final List<NodeToken> tokens = Lists.newArrayList();
+    for (design_file tree : trees) {
+      tree.accept(new DepthFirstVisitor() {
+        @Override
+        public void visit(NodeToken n) {
+          tokens.add(n);
+          if (n.specialTokens != null) {
+            tokens.addAll(n.specialTokens);
+          }
+        }
+      });
+    }
+    long shared = usedHeap() - baseline;
+    describe(tokens);
+    for (NodeToken token : tokens) {
+      token.tokenImage = new String(token.tokenImage.toCharArray());
+    }
+    long copied = usedHeap() - baseline;
+    System.out.printf("shared images: %d KiB, %.1f B/token%n", shared / 1024,
+        (double) shared / tokens.size());
+    System.out.printf("copied images: %d KiB, %.1f B/token%n", copied / 1024,
+        (double) copied / tokens.size());
+    // Keeps the trees reachable until both measurements are done.
+    System.out.println(trees.size() + " trees");
+  }
+
+  private static void describe(List<NodeToken> tokens) {
+    Set<String> images = Collections.newSetFromMap(new IdentityHashMap<String, Boolean>());
+    int withSpecials = 0;
+    for (NodeToken token : tokens) {
+      images.add(token.tokenImage);
+      withSpecials += token.specialTokens == null ? 0 : 1;
+    }
+    System.out.printf("%d tokens, %d with specials, %d distinct images in %d instances%n",
+        tokens.size(), withSpecials, Sets.newHashSet(images).size(), images.size());
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; ++i) {
+      System.gc();
+      Thread.sleep(100);
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+}
@@ -0,0 +1,59 @@
+package stupaq.vhdl93.formatting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import stupaq.translation.BenchmarkCorpus;
+import stupaq.vhdl93.ast.design_file;
+import stupaq.vhdl93.visitor.TreeDumper;
+
+/**
+ * Formats and dumps a whole project, either in two passes or with the single-pass printer.
+ * Formatting a tree again produces the same layout, so the tree is parsed only once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatterBenchmark {
+  @Param({"stopwatch", "features"})
+  public String project;
+  private design_file root;
+
+  @Setup
+  public void setup() throws Exception {
+    root = BenchmarkCorpus.parse(project);
+  }
+
+  @Benchmark
+  public void format() {
+    root.accept(new VHDLTreeFormatter());
+  }
+
+  @Benchmark
+  public byte[] formatAndDump() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    root.accept(new VHDLTreeFormatter());
+    root.accept(new TreeDumper(output));
+    return output.toByteArray();
+  }
+
+  @Benchmark
+  public String print() {
+    return VHDLTreePrinter.print(root);
+  }
+}
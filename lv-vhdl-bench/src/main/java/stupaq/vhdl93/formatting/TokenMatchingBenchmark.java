@@ -0,0 +1,135 @@
+package stupaq.vhdl93.formatting;
+
+import com.google.common.collect.Lists;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import stupaq.translation.BenchmarkCorpus;
+import stupaq.vhdl93.VHDL93ParserConstants;
+import stupaq.vhdl93.ast.NodeToken;
+import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.Action;
+import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.TokenKindsMatcher;
+import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.TokenPairMatcher;
+import stupaq.vhdl93.visitor.DepthFirstVisitor;
+
+/**
+ * Feeds all tokens of a project through an executor with the rules of the
+ * TokenSeparatingTreeFormatter, either as kind matchers, which are compiled into a table, or as
+ * generic matchers, which are checked one by one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenMatchingBenchmark implements VHDL93ParserConstants {
+  @Param({"stopwatch", "features"})
+  public String project;
+  private final List<NodeToken> tokens = Lists.newArrayList();
+  private int executed;
+  private final Action action = new Action() {
+    @Override
+    public void execute() {
+      ++executed;
+    }
+  };
+
+  @Setup
+  public void setup() throws Exception {
+    BenchmarkCorpus.parse(project).accept(new DepthFirstVisitor() {
+      @Override
+      public void visit(NodeToken n) {
+        tokens.add(n);
+      }
+    });
+  }
+
+  private int run(TokenMatchingActionExecutor executor) {
+    executed = 0;
+    for (NodeToken token : tokens) {
+      executor.nextToken(token);
+    }
+    return executed;
+  }
+
+  @Benchmark
+  public int compiled() {
+    TokenMatchingActionExecutor executor = new TokenMatchingActionExecutor();
+    executor.put(new TokenKindsMatcher() {
+      @Override
+      public boolean matches(int l, int r) {
+        return true;
+      }
+    }, action);
+    executor.put(new TokenKindsMatcher() {
+      @Override
+      public boolean matches(int l, int r) {
+        return (l == PERIOD || l == LPAREN || l == TICK) ||
+            (r == SEMICOLON || r == COMMA || r == PERIOD || r == RPAREN || r == TICK);
+      }
+    }, action);
+    executor.put(new TokenKindsMatcher() {
+      @Override
+      public boolean matches(int l, int r) {
+        return (l == MAP || l == basic_identifier || l == extended_identifier) && r == LPAREN;
+      }
+    }, action);
+    executor.put(new TokenKindsMatcher() {
+      @Override
+      public boolean matches(int l, int r) {
+        return l == ASSIGN || r == ASSIGN || l == LE || r == LE || r == IS || l == ELSIF ||
+            l == PROCESS;
+      }
+    }, action);
+    return run(executor);
+  }
+
+  @Benchmark
+  public int generic() {
+    TokenMatchingActionExecutor executor = new TokenMatchingActionExecutor();
+    executor.put(new TokenPairMatcher() {
+      @Override
+      public boolean matches(NodeToken left, NodeToken right) {
+        return true;
+      }
+    }, action);
+    executor.put(new TokenPairMatcher() {
+      @Override
+      public boolean matches(NodeToken left, NodeToken right) {
+        int l = left.kind, r = right.kind;
+        return (l == PERIOD || l == LPAREN || l == TICK) ||
+            (r == SEMICOLON || r == COMMA || r == PERIOD || r == RPAREN || r == TICK);
+      }
+    }, action);
+    executor.put(new TokenPairMatcher() {
+      @Override
+      public boolean matches(NodeToken left, NodeToken right) {
+        int l = left.kind, r = right.kind;
+        return (l == MAP || l == basic_identifier || l == extended_identifier) && r == LPAREN;
+      }
+    }, action);
+    executor.put(new TokenPairMatcher() {
+      @Override
+      public boolean matches(NodeToken left, NodeToken right) {
+        int l = left.kind, r = right.kind;
+        return l == ASSIGN || r == ASSIGN || l == LE || r == LE || r == IS || l == ELSIF ||
+            l == PROCESS;
+      }
+    }, action);
+    return run(executor);
+  }
+}
@@ -1,46 +1,124 @@
 package stupaq.commons;
 
-import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Ordering;
-import com.google.common.collect.Queues;
 
-import java.util.Queue;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Orders vertices by their depth in a directed acyclic graph. Vertices are interned to dense ints
+ * once and ranked with Kahn's algorithm over primitive arrays. Vertices which lie on a cycle or
+ * depend on one cannot be ranked, they go after all other vertices and are reported by {@link
+ * #cyclic()}.
+ */
 public class TopologicalOrdering<T> extends Ordering<T> {
-  private final MapWithDefault<T, Integer> sortedIndices;
+  private final Map<T, Integer> ids = Maps.newHashMap();
+  private final List<T> vertices = Lists.newArrayList();
+  private final int[] ranks;
+  private final int missingRank;
+  private final List<T> cyclic;
 
+  /**
+   * @param missingFirst whether vertices which are not known to the ordering go before or after all
+   * other vertices
+   */
   public TopologicalOrdering(Multimap<T, T> edges, Iterable<T> vertices, boolean missingFirst) {
-    sortedIndices = new MapWithDefault<>(Maps.<T, Integer>newHashMap(),
-        Suppliers.ofInstance(missingFirst ? 0 : Integer.MAX_VALUE));
-    MapWithDefault<T, Integer> inDegrees =
-        new MapWithDefault<>(Maps.<T, Integer>newHashMap(), Suppliers.ofInstance(0));
-    for (T v : edges.values()) {
-      inDegrees.put(v, inDegrees.getDefault(v) + 1);
-    }
-    Queue<T> queue = Queues.newArrayDeque();
+    missingRank = missingFirst ? 0 : Integer.MAX_VALUE;
     for (T v : vertices) {
-      if (inDegrees.getDefault(v) == 0) {
-        sortedIndices.put(v, 0);
-        queue.add(v);
+      intern(v);
+    }
+    for (Map.Entry<T, T> edge : edges.entries()) {
+      intern(edge.getKey());
+      intern(edge.getValue());
+    }
+    int size = this.vertices.size();
+    // Adjacency lists in compressed form: successors of v are targets[offsets[v]..offsets[v+1]).
+    int[] offsets = new int[size + 1];
+    int[] inDegrees = new int[size];
+    for (Map.Entry<T, T> edge : edges.entries()) {
+      ++offsets[ids.get(edge.getKey()) + 1];
+      ++inDegrees[ids.get(edge.getValue())];
+    }
+    for (int v = 0; v < size; ++v) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] targets = new int[offsets[size]];
+    int[] filled = Arrays.copyOf(offsets, size);
+    for (T source : edges.keySet()) {
+      int v = ids.get(source);
+      for (T target : edges.get(source)) {
+        targets[filled[v]++] = ids.get(target);
+      }
+    }
+    ranks = new int[size];
+    Arrays.fill(ranks, -1);
+    int[] queue = new int[size];
+    int head = 0, tail = 0;
+    for (int v = 0; v < size; ++v) {
+      if (inDegrees[v] == 0) {
+        ranks[v] = 0;
+        queue[tail++] = v;
       }
     }
-    while (!queue.isEmpty()) {
-      T v = queue.poll();
-      int nextIndex = sortedIndices.get(v) + 1;
-      for (T u : edges.get(v)) {
-        inDegrees.put(u, inDegrees.getDefault(u) - 1);
-        if (inDegrees.getDefault(u) == 0) {
-          sortedIndices.put(u, nextIndex);
-          queue.add(u);
+    while (head < tail) {
+      int v = queue[head++];
+      for (int i = offsets[v]; i < offsets[v + 1]; ++i) {
+        int u = targets[i];
+        if (--inDegrees[u] == 0) {
+          ranks[u] = ranks[v] + 1;
+          queue[tail++] = u;
         }
       }
     }
+    ImmutableList.Builder<T> cyclic = ImmutableList.builder();
+    for (int v = 0; v < size; ++v) {
+      if (ranks[v] < 0) {
+        cyclic.add(this.vertices.get(v));
+        ranks[v] = Integer.MAX_VALUE;
+      }
+    }
+    this.cyclic = cyclic.build();
+  }
+
+  private int intern(T v) {
+    Integer id = ids.get(v);
+    if (id == null) {
+      id = vertices.size();
+      ids.put(v, id);
+      vertices.add(v);
+    }
+    return id;
+  }
+
+  /** Returns the dense id of the vertex, or -1 if the vertex is not known. */
+  public int id(T v) {
+    Integer id = ids.get(v);
+    return id == null ? -1 : id;
+  }
+
+  /** Returns a copy of ranks of all vertices, indexed by their ids. */
+  public int[] ranks() {
+    return ranks.clone();
+  }
+
+  /** Returns depth of the vertex, vertices at the same depth share it. */
+  public int rank(T v) {
+    int id = id(v);
+    return id < 0 ? missingRank : ranks[id];
+  }
+
+  /** Returns vertices which lie on a cycle or depend on one, in order of interning. */
+  public List<T> cyclic() {
+    return cyclic;
   }
 
   @Override
   public int compare(T o1, T o2) {
-    return sortedIndices.getDefault(o1).compareTo(sortedIndices.getDefault(o2));
+    return Integer.compare(rank(o1), rank(o2));
   }
 }
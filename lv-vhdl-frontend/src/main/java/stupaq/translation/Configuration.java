@@ -3,8 +3,49 @@ package stupaq.translation;
 public abstract class Configuration extends stupaq.labview.Configuration {
   private static final String PREFIX = "translation.";
   private static final String DEPENDENCIES_FOLLOW = PREFIX + "dependencies.follow";
+  private static final String PARSING_THREADS = PREFIX + "parsing.threads";
+  private static final String PARSING_CACHE = PREFIX + "parsing.cache";
+  private static final String PARSING_RECOVER = PREFIX + "parsing.recover";
+  private static final String CACHE_DIRECTORY = PREFIX + "cache.directory";
+  private static final String INCREMENTAL = PREFIX + "incremental";
+  private static final String SNIPPETS_CACHE_SIZE = PREFIX + "parsing.snippets.cache.size";
+  private static final String TRANSLATION_THREADS = PREFIX + "threads";
+  private static final String INTERFACES_CACHE = PREFIX + "interfaces.cache";
 
   public static boolean getDependenciesFollow() {
     return Boolean.valueOf(System.getProperty(DEPENDENCIES_FOLLOW, "true"));
   }
+
+  public static int getParsingThreads() {
+    return Integer.valueOf(System.getProperty(PARSING_THREADS,
+        String.valueOf(Runtime.getRuntime().availableProcessors())));
+  }
+
+  public static boolean getParsingCache() {
+    return Boolean.valueOf(System.getProperty(PARSING_CACHE, "true"));
+  }
+
+  public static boolean getParsingRecover() {
+    return Boolean.valueOf(System.getProperty(PARSING_RECOVER, "false"));
+  }
+
+  public static String getCacheDirectory() {
+    return System.getProperty(CACHE_DIRECTORY, ".cache");
+  }
+
+  public static boolean getIncremental() {
+    return Boolean.valueOf(System.getProperty(INCREMENTAL, "false"));
+  }
+
+  public static long getSnippetsCacheSize() {
+    return Long.valueOf(System.getProperty(SNIPPETS_CACHE_SIZE, "4096"));
+  }
+
+  public static int getTranslationThreads() {
+    return Integer.valueOf(System.getProperty(TRANSLATION_THREADS, "1"));
+  }
+
+  public static boolean getInterfacesCache() {
+    return Boolean.valueOf(System.getProperty(INTERFACES_CACHE, "true"));
+  }
 }
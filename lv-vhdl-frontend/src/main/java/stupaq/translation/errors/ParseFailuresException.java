@@ -0,0 +1,29 @@
+package stupaq.translation.errors;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Map.Entry;
+
+public class ParseFailuresException extends TranslationException {
+  private final ImmutableMap<Path, Throwable> failures;
+
+  public ParseFailuresException(Map<Path, Throwable> failures) {
+    super(describe(failures));
+    this.failures = ImmutableMap.copyOf(failures);
+  }
+
+  private static String describe(Map<Path, Throwable> failures) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("Parsing failed for ").append(failures.size()).append(" file(s):");
+    for (Entry<Path, Throwable> entry : failures.entrySet()) {
+      builder.append('\n').append(entry.getKey()).append(": ").append(entry.getValue().getMessage());
+    }
+    return builder.toString();
+  }
+
+  public ImmutableMap<Path, Throwable> failures() {
+    return failures;
+  }
+}
@@ -5,7 +5,9 @@ import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Verify;
 import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -39,8 +41,6 @@ import stupaq.translation.naming.IOReference;
 import stupaq.translation.naming.Identifier;
 import stupaq.translation.naming.InstantiableName;
 import stupaq.translation.parsing.NodeRepr;
-import stupaq.translation.parsing.VHDL93ParserPartial;
-import stupaq.translation.project.LVProjectReader;
 import stupaq.translation.semantic.InferenceContext;
 import stupaq.vhdl93.ast.*;
 import stupaq.vhdl93.visitor.NonTerminalsNoOpVisitor;
@@ -51,7 +51,19 @@ import static stupaq.translation.TranslationConventions.INPUTS_CONN_INDEX;
 import static stupaq.translation.TranslationConventions.OUTPUTS_CONN_INDEX;
 import static stupaq.translation.errors.LocalisedSemanticException.semanticCheck;
 import static stupaq.translation.parsing.NodeRepr.repr;
-import static stupaq.translation.parsing.VHDL93ParserPartial.Parsers.forString;
+import static stupaq.translation.parsing.Production.ARCHITECTURE_DECLARATIVE_PART;
+import static stupaq.translation.parsing.Production.ARCHITECTURE_IDENTIFIER;
+import static stupaq.translation.parsing.Production.ARCHITECTURE_STATEMENT_PART;
+import static stupaq.translation.parsing.Production.CONCURRENT_STATEMENT;
+import static stupaq.translation.parsing.Production.CONSTANT_DECLARATION;
+import static stupaq.translation.parsing.Production.CONTEXT_CLAUSE;
+import static stupaq.translation.parsing.Production.ENTITY_NAME;
+import static stupaq.translation.parsing.Production.EXPRESSION;
+import static stupaq.translation.parsing.Production.INSTANTIATED_UNIT;
+import static stupaq.translation.parsing.Production.INSTANTIATION_LABEL;
+import static stupaq.translation.parsing.Production.INTERFACE_CONSTANT_DECLARATION;
+import static stupaq.translation.parsing.Production.INTERFACE_DECLARATION;
+import static stupaq.translation.parsing.Production.INTERFACE_SIGNAL_DECLARATION;
 import static stupaq.vhdl93.VHDL93ParserConstants.*;
 import static stupaq.vhdl93.VHDL93ParserTotal.tokenString;
 import static stupaq.vhdl93.ast.Builders.*;
@@ -60,27 +72,41 @@ class ArchitectureDefinition {
   private static final Logger LOGGER = LoggerFactory.getLogger(ArchitectureDefinition.class);
   private static final boolean FOLLOW_DEPENDENCIES = Configuration.getDependenciesFollow();
   private static final int STATEMENTS_SORTING_LOOKUP = 6;
-  private final LVProjectReader project;
   private final InterfaceDeclarationCache interfaceCache;
   private final EndpointsMap endpoints;
   private final MultiplexersMap multiplexers;
   private final DeclarationInferenceRules declarationInference;
   private final NodeListOptional architectureDeclarations = new NodeListOptional();
   private final NodeListOptional concurrentStatements = new NodeListOptional();
+  private final List<VIPath> dependencies = Lists.newArrayList();
   private context_clause context;
 
-  public ArchitectureDefinition(InterfaceDeclarationCache interfaceCache, LVProjectReader project,
-      ParsedVI theVi) {
-    this.project = project;
+  public ArchitectureDefinition(InterfaceDeclarationCache interfaceCache) {
     this.interfaceCache = interfaceCache;
-    // Collect information about endpoints and connections between them.
-    endpoints = new EndpointsMap(theVi);
-    // Resolve universal VI conventions.
-    multiplexers = new MultiplexersMap(endpoints, theVi);
-    // Prepare inference rules.
-    declarationInference = new DeclarationInferenceRules(theVi);
-    // Prepare all visitors using common order and run them.
-    theVi.accept(new BuilderVisitor());
+    endpoints = new EndpointsMap();
+    multiplexers = new MultiplexersMap(endpoints);
+    declarationInference = new DeclarationInferenceRules();
+  }
+
+  /**
+   * Returns visitors that must see the VI in a single pass (see {@link VIElementsMultiplexer}),
+   * each declares in {@link VIElementsVisitor#parsersRequired()} which analyses of the others must
+   * be complete before its elements are visited, so the order of this list does not matter.
+   */
+  public List<VIElementsVisitor<TranslationException>> builders() {
+    return Arrays.asList(
+        // Collect information about endpoints and connections between them.
+        endpoints.builder(),
+        // Resolve universal VI conventions.
+        multiplexers.builder(),
+        // Prepare inference rules.
+        declarationInference.builder(),
+        // Build the architecture itself.
+        new BuilderVisitor());
+  }
+
+  /** Must be called once visitors obtained from {@link #builders()} have seen the whole VI. */
+  public void finish() {
     architectureDeclarations.nodes.addAll(declarationInference.inferredDeclarations());
     Collections.sort(architectureDeclarations.nodes,
         new DeclarationOrdering(architectureDeclarations));
@@ -105,11 +131,16 @@ class ArchitectureDefinition {
     }
   }
 
+  /** Returns VIs instantiated by this one which should be translated too, in discovery order. */
+  public List<VIPath> dependencies() {
+    return dependencies;
+  }
+
   public design_unit emitAsArchitecture(ArchitectureName name) throws Exception {
     context_clause context = fromNullable(this.context).or(new context_clause(listOptional()));
     architecture_identifier identifier =
-        forString(name.architecture().toString()).architecture_identifier();
-    entity_name entity = forString(name.entity().entity().toString()).entity_name();
+        repr(name.architecture().toString()).as(ARCHITECTURE_IDENTIFIER);
+    entity_name entity = repr(name.entity().entity().toString()).as(ENTITY_NAME);
     architecture_declaration definition = new architecture_declaration(identifier, entity,
         new architecture_declarative_part(architectureDeclarations),
         new architecture_statement_part(concurrentStatements), optional(), optional());
@@ -132,6 +163,22 @@ class ArchitectureDefinition {
           ControlCluster.XML_NAME, Control.NUMERIC_XML_NAME, RingConstant.XML_NAME, SubVI.XML_NAME);
     }
 
+    @Override
+    public ListMultimap<String, String> parsersRequired() {
+      ImmutableListMultimap.Builder<String, String> required = ImmutableListMultimap.builder();
+      // All of these look up endpoints.
+      for (String kind : Arrays.asList(FormulaNode.XML_NAME, Control.NUMERIC_XML_NAME,
+          RingConstant.XML_NAME, SubVI.XML_NAME)) {
+        required.putAll(kind, EndpointsMap.PARSERS_ORDER);
+      }
+      // Clustered controls and instances follow (un)bundlers.
+      required.putAll(Control.NUMERIC_XML_NAME, MultiplexersMap.PARSERS_ORDER);
+      required.putAll(SubVI.XML_NAME, MultiplexersMap.PARSERS_ORDER);
+      // Signals connected to instances are declared by inference rules.
+      required.putAll(SubVI.XML_NAME, DeclarationInferenceRules.PARSERS_ORDER);
+      return required.build();
+    }
+
     @Override
     protected void WireWithSignalDeclaration(UID uid, NodeRepr label,
         signal_declaration declaration) {
@@ -140,12 +187,12 @@ class ArchitectureDefinition {
 
     @Override
     protected void FormulaWithArchitectureContext(UID uid, NodeRepr expression) {
-      context = expression.as().context_clause();
+      context = expression.as(CONTEXT_CLAUSE);
     }
 
     @Override
     protected void FormulaWithArchitectureDeclarations(UID uid, NodeRepr expression) {
-      NodeListOptional extra = expression.as().architecture_declarative_part().nodeListOptional;
+      NodeListOptional extra = expression.as(ARCHITECTURE_DECLARATIVE_PART).nodeListOptional;
       architectureDeclarations.nodes.addAll(extra.nodes);
     }
 
@@ -160,13 +207,13 @@ class ArchitectureDefinition {
         }
       }
       concurrentStatements.nodes.addAll(
-          expression.as().architecture_statement_part().nodeListOptional.nodes);
+          expression.as(ARCHITECTURE_STATEMENT_PART).nodeListOptional.nodes);
     }
 
     @Override
     protected void FormulaWithProcessStatement(UID uid, NodeRepr expression,
         Iterable<Endpoint> parameters) {
-      concurrent_statement process = expression.as().concurrent_statement();
+      concurrent_statement process = expression.as(CONCURRENT_STATEMENT);
       semanticCheck(process.nodeChoice.choice instanceof process_statement,
           "Statement is not a process declaration contrary to what label claims.");
       concurrentStatements.nodes.add(process);
@@ -207,15 +254,15 @@ class ArchitectureDefinition {
         boolean isIndicator, ControlStyle style, String description) {
       semanticCheck(label.isPresent(), "Missing control label (should contain port declaration).");
       String declaration = label.get().trim();
-      VHDL93ParserPartial labelParser = forString(declaration);
+      NodeRepr labelRepr = repr(declaration);
       identifier signal;
       if (style == ControlStyle.NUMERIC_I32) {
         // This is a generic.
-        interface_constant_declaration generic = labelParser.interface_constant_declaration();
+        interface_constant_declaration generic = labelRepr.as(INTERFACE_CONSTANT_DECLARATION);
         signal = generic.identifier_list.identifier;
       } else if (style == ControlStyle.NUMERIC_DBL) {
         // This is a port.
-        interface_signal_declaration port = labelParser.interface_signal_declaration();
+        interface_signal_declaration port = labelRepr.as(INTERFACE_SIGNAL_DECLARATION);
         signal = port.identifier_list.identifier;
       } else {
         throw new SemanticException("Control style not recognised: %s", style);
@@ -238,9 +285,9 @@ class ArchitectureDefinition {
       String constantString = stringsAndValues.keySet().iterator().next();
       NodeRepr value;
       if (label.isPresent()) {
-        VHDL93ParserPartial parser =
-            forString(label.get() + tokenString(ASSIGN) + constantString + tokenString(SEMICOLON));
-        constant_declaration constant = parser.constant_declaration();
+        NodeRepr snippet =
+            repr(label.get() + tokenString(ASSIGN) + constantString + tokenString(SEMICOLON));
+        constant_declaration constant = snippet.as(CONSTANT_DECLARATION);
         architectureDeclarations.addNode(new block_declarative_item(choice(constant)));
         value = repr(constant.identifier_list.identifier);
       } else {
@@ -268,15 +315,15 @@ class ArchitectureDefinition {
           component_declaration component = declaration.emitAsComponent(name);
           architectureDeclarations.addNode(new block_declarative_item(choice(component)));
         }
-        unit = forString(
-            tokenString(COMPONENT) + ' ' + name.component().toString()).instantiated_unit();
+        unit = repr(tokenString(COMPONENT) + ' ' + name.component().toString()).as(
+            INSTANTIATED_UNIT);
       } else if (element instanceof ArchitectureName) {
         ArchitectureName name = (ArchitectureName) element;
         // Schedule for processing.
         if (FOLLOW_DEPENDENCIES) {
-          project.addDependency(viPath);
+          dependencies.add(viPath);
         }
-        unit = forString(tokenString(ENTITY) + ' ' + name.toString()).instantiated_unit();
+        unit = repr(tokenString(ENTITY) + ' ' + name.toString()).as(INSTANTIATED_UNIT);
       } else {
         throw new VerifyException("Unknown instantiable name.");
       }
@@ -317,17 +364,17 @@ class ArchitectureDefinition {
       final List<Endpoint> inferrableTerminals = Lists.newArrayList();
       final InferenceContext inferenceContext = new InferenceContext();
       for (Endpoint terminal : endpoints) {
-        VHDL93ParserPartial parser = forString(terminal.name());
-        Node node = parser.interface_declaration().nodeChoice.choice;
+        NodeRepr snippet = repr(terminal.name());
+        Node node = snippet.as(INTERFACE_DECLARATION).nodeChoice.choice;
         if (node instanceof interface_constant_declaration) {
           interface_constant_declaration generic = (interface_constant_declaration) node;
           semanticCheck(generic.nodeOptional.present(), "Missing signal/constant specifier.");
           // Generics without assigned value should be left alone.
           // Assigning "open" makes no sense.
-          final IOReference ref = new IOReference(generic.identifier_list.identifier);
+          final IOReference ref = IOReference.of(generic.identifier_list.identifier);
           if (terminal.hasValue()) {
             formal_part formal = new formal_part(generic.identifier_list.identifier);
-            actual_part actual = new actual_part(choice(terminal.value().as().expression()));
+            actual_part actual = new actual_part(choice(terminal.value().as(EXPRESSION)));
             generics.put(declaration.getListIndex(ref),
                 new named_association_element(formal, actual));
             inferenceContext.put(ref, terminal.value());
@@ -352,8 +399,8 @@ class ArchitectureDefinition {
           // Apply signal inference rules to instance endpoints.
           valueInference.inferValue(terminal);
           actual_part actual = new actual_part(choice(
-              terminal.hasValue() ? terminal.value().as().expression() : new actual_part_open()));
-          IOReference ref = new IOReference(port.identifier_list.identifier);
+              terminal.hasValue() ? terminal.value().as(EXPRESSION) : new actual_part_open()));
+          IOReference ref = IOReference.of(port.identifier_list.identifier);
           ports.put(declaration.getListIndex(ref), new named_association_element(formal, actual));
           inferrableTerminals.add(terminal);
         } else {
@@ -366,9 +413,8 @@ class ArchitectureDefinition {
         declarationInference.inferDeclaration(terminal, inferenceContext);
       }
       // Put together component instantiation.
-      VHDL93ParserPartial parser =
-          forString(description.isEmpty() ? "label" + ++nextLabelNum : description);
-      instantiation_label instantiationLabel = parser.instantiation_label();
+      NodeRepr snippet = repr(description.isEmpty() ? "label" + ++nextLabelNum : description);
+      instantiation_label instantiationLabel = snippet.as(INSTANTIATION_LABEL);
       NodeOptional genericAspect = generics.isEmpty() ? optional()
           : optional(new generic_map_aspect(emitAssociationList(generics.values())));
       NodeOptional portAspect = ports.isEmpty() ? optional()
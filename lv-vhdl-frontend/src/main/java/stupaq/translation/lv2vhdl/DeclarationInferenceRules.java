@@ -16,16 +16,15 @@ import stupaq.labview.hierarchy.Control;
 import stupaq.labview.hierarchy.FormulaNode;
 import stupaq.labview.scripting.tools.ControlStyle;
 import stupaq.translation.errors.SemanticException;
-import stupaq.translation.errors.SyntaxException;
 import stupaq.translation.errors.TranslationException;
 import stupaq.translation.naming.IOReference;
 import stupaq.translation.parsing.NodeRepr;
-import stupaq.translation.parsing.VHDL93ParserPartial;
 import stupaq.translation.semantic.InferenceContext;
 import stupaq.translation.semantic.SubtypeInstantiator;
 import stupaq.vhdl93.ast.Node;
 import stupaq.vhdl93.ast.NodeListOptional;
 import stupaq.vhdl93.ast.block_declarative_item;
+import stupaq.vhdl93.ast.identifier;
 import stupaq.vhdl93.ast.identifier_list;
 import stupaq.vhdl93.ast.interface_constant_declaration;
 import stupaq.vhdl93.ast.interface_signal_declaration;
@@ -35,18 +34,26 @@ import stupaq.vhdl93.ast.variable_declaration;
 
 import static java.util.Arrays.asList;
 import static stupaq.translation.errors.LocalisedSemanticException.semanticCheck;
-import static stupaq.translation.parsing.VHDL93ParserPartial.Parsers.forString;
+import static stupaq.translation.parsing.NodeRepr.repr;
+import static stupaq.translation.parsing.Production.ARCHITECTURE_DECLARATIVE_PART;
+import static stupaq.translation.parsing.Production.ENTITY_DECLARATIVE_PART;
+import static stupaq.translation.parsing.Production.IDENTIFIER;
+import static stupaq.translation.parsing.Production.INTERFACE_CONSTANT_DECLARATION;
+import static stupaq.translation.parsing.Production.INTERFACE_SIGNAL_DECLARATION;
 import static stupaq.vhdl93.ast.Builders.choice;
 import static stupaq.vhdl93.ast.Builders.listOptional;
 import static stupaq.vhdl93.ast.Builders.optional;
 
 class DeclarationInferenceRules {
+  /** Kinds of elements which must be visited before any declaration is inferred. */
+  public static final List<String> PARSERS_ORDER =
+      asList(FormulaNode.XML_NAME, Control.NUMERIC_XML_NAME);
   private static final Logger LOGGER = LoggerFactory.getLogger(DeclarationInferenceRules.class);
   private final Set<IOReference> declared = Sets.newHashSet();
   private final List<block_declarative_item> inferred = Lists.newArrayList();
 
-  public DeclarationInferenceRules(ParsedVI theVi) {
-    theVi.accept(new BuilderVisitor());
+  public VIElementsVisitor<TranslationException> builder() {
+    return new BuilderVisitor();
   }
 
   public void inferDeclaration(Endpoint terminal, InferenceContext context) {
@@ -55,21 +62,20 @@ class DeclarationInferenceRules {
       return;
     }
     NodeRepr value = terminal.value();
-    IOReference ref;
-    try {
-      ref = new IOReference(value.as().identifier());
-    } catch (SyntaxException e) {
+    Optional<identifier> valueIdentifier = value.tryAs(IDENTIFIER);
+    if (!valueIdentifier.isPresent()) {
       LOGGER.debug("Skipping declaration inference (not an identifier) for: {}.", terminal);
       return;
     }
+    IOReference ref = IOReference.of(valueIdentifier.get());
     if (!declared.contains(ref)) {
-      subtype_indication type;
-      try {
-        type = forString(terminal.name()).interface_signal_declaration().subtype_indication;
-      } catch (SyntaxException e) {
+      Optional<interface_signal_declaration> declaration =
+          repr(terminal.name()).tryAs(INTERFACE_SIGNAL_DECLARATION);
+      if (!declaration.isPresent()) {
         LOGGER.debug("Skipping declaration inference (not a declaration) for: {}.", terminal);
         return;
       }
+      subtype_indication type = declaration.get().subtype_indication;
       Optional<subtype_indication> instantiated = new SubtypeInstantiator(context).apply(type);
       if (!instantiated.isPresent()) {
         LOGGER.debug("Skipping declaration inference (parameters) for: {}.", terminal);
@@ -94,7 +100,7 @@ class DeclarationInferenceRules {
   private class BuilderVisitor extends VIElementsVisitor<TranslationException> {
     @Override
     public Iterable<String> parsersOrder() {
-      return asList(Control.NUMERIC_XML_NAME, FormulaNode.XML_NAME);
+      return PARSERS_ORDER;
     }
 
     @Override
@@ -102,15 +108,15 @@ class DeclarationInferenceRules {
         boolean isIndicator, ControlStyle style, String description) {
       semanticCheck(label.isPresent(), "Missing control label (should contain port declaration).");
       String declaration = label.get().trim();
-      VHDL93ParserPartial labelParser = forString(declaration);
+      NodeRepr labelRepr = repr(declaration);
       if (style == ControlStyle.NUMERIC_I32) {
         // This is a generic.
-        interface_constant_declaration generic = labelParser.interface_constant_declaration();
-        declared.add(new IOReference(generic.identifier_list.identifier));
+        interface_constant_declaration generic = labelRepr.as(INTERFACE_CONSTANT_DECLARATION);
+        declared.add(IOReference.of(generic.identifier_list.identifier));
       } else if (style == ControlStyle.NUMERIC_DBL) {
         // This is a port.
-        interface_signal_declaration port = labelParser.interface_signal_declaration();
-        declared.add(new IOReference(port.identifier_list.identifier));
+        interface_signal_declaration port = labelRepr.as(INTERFACE_SIGNAL_DECLARATION);
+        declared.add(IOReference.of(port.identifier_list.identifier));
       } else {
         throw new SemanticException("Control style not recognised: %s", style);
       }
@@ -118,14 +124,14 @@ class DeclarationInferenceRules {
 
     @Override
     protected void FormulaWithEntityDeclarations(UID uid, NodeRepr expression) {
-      NodeListOptional declarations = expression.as().entity_declarative_part().nodeListOptional;
+      NodeListOptional declarations = expression.as(ENTITY_DECLARATIVE_PART).nodeListOptional;
       addDeclarations(declarations);
     }
 
     @Override
     protected void FormulaWithArchitectureDeclarations(UID uid, NodeRepr expression) {
       NodeListOptional declarations =
-          expression.as().architecture_declarative_part().nodeListOptional;
+          expression.as(ARCHITECTURE_DECLARATIVE_PART).nodeListOptional;
       addDeclarations(declarations);
     }
 
@@ -134,10 +140,10 @@ class DeclarationInferenceRules {
         Node declaration = ((block_declarative_item) node).nodeChoice.choice;
         if (declaration instanceof signal_declaration) {
           signal_declaration signal = (signal_declaration) declaration;
-          declared.add(new IOReference(signal.identifier_list.identifier));
+          declared.add(IOReference.of(signal.identifier_list.identifier));
         } else if (declaration instanceof variable_declaration) {
           variable_declaration signal = (variable_declaration) declaration;
-          declared.add(new IOReference(signal.identifier_list.identifier));
+          declared.add(IOReference.of(signal.identifier_list.identifier));
         }
       }
     }
@@ -8,8 +8,12 @@ import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import stupaq.commons.TopologicalOrdering;
@@ -35,7 +39,9 @@ import static stupaq.vhdl93.ast.Builders.optional;
 import static stupaq.vhdl93.ast.Builders.sequence;
 
 class DeclarationOrdering extends Ordering<Node> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeclarationOrdering.class);
   private static final int DECLARATIONS_SORTING_LOOKUP = 2;
+  private final Map<Node, Integer> ranks = Maps.newIdentityHashMap();
   private final Ordering<Node> ordering;
 
   public DeclarationOrdering(NodeListOptional declarations) {
@@ -107,16 +113,35 @@ class DeclarationOrdering extends Ordering<Node> {
         it.remove();
       }
     }
-    // Create our ordering.
-    ordering = new TopologicalOrdering<>(outgoing, allLHS, true).onResultOf(
-        new Function<Node, IOReference>() {
-          DeclarationLHSExtractor lhsExtractor = new DeclarationLHSExtractor();
-
-          @Override
-          public IOReference apply(Node node) {
-            return lhsExtractor.apply(node);
-          }
-        }).nullsLast().compound(new FirstFewTokensOrdering(DECLARATIONS_SORTING_LOOKUP));
+    // Rank all declarations once, so that sorting does not extract references again.
+    final TopologicalOrdering<IOReference> topological =
+        new TopologicalOrdering<>(outgoing, allLHS, true);
+    if (!topological.cyclic().isEmpty()) {
+      LOGGER.warn("Declarations with cyclic dependencies will go last: {}", topological.cyclic());
+    }
+    final DeclarationLHSExtractor lhsExtractor = new DeclarationLHSExtractor();
+    final Function<Node, Integer> rank = new Function<Node, Integer>() {
+      @Override
+      public Integer apply(Node node) {
+        // Non-declarations have no rank, so that they go after all declarations.
+        IOReference lhs = lhsExtractor.apply(node);
+        return lhs == null ? null : topological.rank(lhs);
+      }
+    };
+    for (Node node : declarations.nodes) {
+      ranks.put(node, rank.apply(node));
+    }
+    ordering = Ordering.natural().nullsLast().onResultOf(new Function<Node, Integer>() {
+      @Override
+      public Integer apply(Node node) {
+        if (ranks.containsKey(node)) {
+          return ranks.get(node);
+        }
+        Integer result = rank.apply(node);
+        ranks.put(node, result);
+        return result;
+      }
+    }).compound(new FirstFewTokensOrdering(DECLARATIONS_SORTING_LOOKUP));
   }
 
   @Override
@@ -129,23 +154,24 @@ class DeclarationOrdering extends Ordering<Node> {
 
     @Override
     public IOReference apply(Node n) {
+      reference = null;
       super.apply(n);
       return reference;
     }
 
     @Override
     public void visit(full_type_declaration n) {
-      reference = new IOReference(n.identifier);
+      reference = IOReference.of(n.identifier);
     }
 
     @Override
     public void visit(incomplete_type_declaration n) {
-      reference = new IOReference(n.identifier);
+      reference = IOReference.of(n.identifier);
     }
 
     @Override
     public void visit(subtype_declaration n) {
-      reference = new IOReference(n.identifier);
+      reference = IOReference.of(n.identifier);
     }
 
     @Override
@@ -170,22 +196,22 @@ class DeclarationOrdering extends Ordering<Node> {
 
     @Override
     public void visit(constant_declaration n) {
-      reference = new IOReference(n.identifier_list.identifier);
+      reference = IOReference.of(n.identifier_list.identifier);
     }
 
     @Override
     public void visit(shared_variable_declaration n) {
-      reference = new IOReference(n.identifier_list.identifier);
+      reference = IOReference.of(n.identifier_list.identifier);
     }
 
     @Override
     public void visit(signal_declaration n) {
-      reference = new IOReference(n.identifier_list.identifier);
+      reference = IOReference.of(n.identifier_list.identifier);
     }
 
     @Override
     public void visit(variable_declaration n) {
-      reference = new IOReference(n.identifier_list.identifier);
+      reference = IOReference.of(n.identifier_list.identifier);
     }
   }
 }
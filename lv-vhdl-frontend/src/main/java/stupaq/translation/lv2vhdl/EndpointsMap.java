@@ -29,11 +29,14 @@ import static stupaq.translation.errors.LocalisedSemanticException.semanticCheck
 import static stupaq.translation.parsing.NodeRepr.repr;
 
 class EndpointsMap {
+  /** Kinds of elements which must be visited before any endpoint is looked up. */
+  public static final List<String> PARSERS_ORDER =
+      asList(Terminal.XML_NAME, Wire.XML_NAME, Tunnel.XML_NAME);
   private static final Logger LOGGER = LoggerFactory.getLogger(EndpointsMap.class);
   private final Map<UID, Endpoint> delegate = Maps.newHashMap();
 
-  public EndpointsMap(ParsedVI theVi) {
-    theVi.accept(new BuilderVisitor());
+  public VIElementsVisitor<TranslationException> builder() {
+    return new BuilderVisitor();
   }
 
   public Endpoint get(UID uid) {
@@ -60,7 +63,7 @@ class EndpointsMap {
 
     @Override
     public Iterable<String> parsersOrder() {
-      return asList(Terminal.XML_NAME, Wire.XML_NAME, Tunnel.XML_NAME);
+      return PARSERS_ORDER;
     }
 
     @Override
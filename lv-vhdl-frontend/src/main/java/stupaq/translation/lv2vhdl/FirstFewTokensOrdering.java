@@ -1,38 +1,46 @@
 package stupaq.translation.lv2vhdl;
 
-import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 
 import java.util.List;
+import java.util.Map;
 
 import stupaq.vhdl93.ast.Node;
 import stupaq.vhdl93.ast.NodeToken;
 import stupaq.vhdl93.visitor.DepthFirstVisitor;
 
+/**
+ * Orders nodes by images of their first few tokens. Images are found once per node and remembered
+ * for the lifetime of the ordering, which should therefore not outlive a single sort.
+ */
 class FirstFewTokensOrdering extends Ordering<Node> {
+  private static final Ordering<Iterable<String>> IMAGES_ORDERING =
+      Ordering.<String>natural().lexicographical();
+  private final Map<Node, List<String>> keys = Maps.newIdentityHashMap();
   private final int lookupLimit;
 
   public FirstFewTokensOrdering(int lookupLimit) {
     this.lookupLimit = lookupLimit;
   }
 
+  private List<String> key(Node n) {
+    List<String> key = keys.get(n);
+    if (key == null) {
+      key = new TokensFindingVisitor(lookupLimit, n).images();
+      keys.put(n, key);
+    }
+    return key;
+  }
+
   @Override
   public int compare(Node o1, Node o2) {
-    return Ordering.natural()
-        .onResultOf(new Function<NodeToken, Comparable>() {
-          @Override
-          public Comparable apply(NodeToken o) {
-            return o.tokenImage;
-          }
-        })
-        .lexicographical()
-        .compare(new TokensFindingVisitor(lookupLimit, o1).tokens(),
-            new TokensFindingVisitor(lookupLimit, o2).tokens());
+    return IMAGES_ORDERING.compare(key(o1), key(o2));
   }
 
   private static class TokensFindingVisitor extends DepthFirstVisitor {
-    private final List<NodeToken> tokens = Lists.newArrayList();
+    private final List<String> images = Lists.newArrayList();
     private int lookupLimit;
 
     public TokensFindingVisitor(int lookupLimit, Node n) {
@@ -43,29 +51,23 @@ class FirstFewTokensOrdering extends Ordering<Node> {
       }
     }
 
-    public List<NodeToken> tokens() {
-      return tokens;
+    public List<String> images() {
+      return images;
     }
 
     @Override
     public void visit(NodeToken n) {
-      tokens.add(n);
+      images.add(n.tokenImage);
       if (--lookupLimit <= 0) {
-        throw new AllTokensFoundException(n);
+        throw new AllTokensFoundException();
       }
     }
 
     private static class AllTokensFoundException extends RuntimeException {
-      private final NodeToken token;
-
-      private AllTokensFoundException(NodeToken token) {
-        this.token = token;
-      }
-
-      public NodeToken getToken() {
-        return token;
+      private AllTokensFoundException() {
+        // Used for control flow only, there is no point in filling the stack trace.
+        super(null, null, false, false);
       }
     }
   }
 }
-
@@ -9,9 +9,11 @@ import com.google.common.primitives.UnsignedInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import stupaq.commons.IntegerMap;
 import stupaq.labview.UID;
@@ -33,7 +35,12 @@ import static java.util.Arrays.asList;
 import static stupaq.translation.errors.LocalisedSemanticException.semanticCheck;
 import static stupaq.translation.errors.SemanticException.semanticNotNull;
 import static stupaq.translation.parsing.NodeRepr.repr;
-import static stupaq.translation.parsing.VHDL93ParserPartial.Parsers.forString;
+import static stupaq.translation.parsing.Production.COMPONENT_IDENTIFIER;
+import static stupaq.translation.parsing.Production.CONTEXT_CLAUSE;
+import static stupaq.translation.parsing.Production.ENTITY_DECLARATIVE_PART;
+import static stupaq.translation.parsing.Production.ENTITY_IDENTIFIER;
+import static stupaq.translation.parsing.Production.INTERFACE_CONSTANT_DECLARATION;
+import static stupaq.translation.parsing.Production.INTERFACE_SIGNAL_DECLARATION;
 import static stupaq.vhdl93.VHDL93ParserConstants.IS;
 import static stupaq.vhdl93.VHDL93ParserConstants.SEMICOLON;
 import static stupaq.vhdl93.ast.Builders.*;
@@ -48,11 +55,59 @@ class InterfaceDeclaration {
   private boolean clustered = false;
   private context_clause entityContext;
 
+  public InterfaceDeclaration() {
+  }
+
   public InterfaceDeclaration(stupaq.labview.parsing.ParsedVI theVi) {
-    theVi.accept(new BuilderVisitor());
+    theVi.accept(builder());
+    finish();
+  }
+
+  public InterfaceDeclaration(Snapshot snapshot) {
+    clustered = snapshot.clustered;
+    entityContext = snapshot.entityContext;
+    entityDeclarations.nodes.addAll(snapshot.entityDeclarations.nodes);
+    for (Map.Entry<Integer, TreeMap<Integer, String>> entry :
+        snapshot.paneIndexToNames.entrySet()) {
+      IntegerMap<String> names = new IntegerMap<>();
+      names.putAll(entry.getValue());
+      paneIndexToNames.put(entry.getKey(), names);
+    }
+    for (Map.Entry<Integer, interface_constant_declaration> entry : snapshot.generics.entrySet()) {
+      interface_constant_declaration generic = entry.getValue();
+      generics.put(entry.getKey(), generic);
+      refToListIndex.put(IOReference.of(generic.identifier_list.identifier), entry.getKey());
+    }
+    for (Map.Entry<Integer, interface_signal_declaration> entry : snapshot.ports.entrySet()) {
+      interface_signal_declaration port = entry.getValue();
+      ports.put(entry.getKey(), port);
+      refToListIndex.put(IOReference.of(port.identifier_list.identifier), entry.getKey());
+    }
+  }
+
+  public VIElementsVisitor<TranslationException> builder() {
+    return new BuilderVisitor();
+  }
+
+  /** Must be called once the visitor obtained from {@link #builder()} has seen the whole VI. */
+  public void finish() {
     Collections.sort(entityDeclarations.nodes, new DeclarationOrdering(entityDeclarations));
   }
 
+  /** Captures everything necessary to recreate this interface without visiting the VI. */
+  public Snapshot snapshot() {
+    Snapshot snapshot = new Snapshot();
+    snapshot.clustered = clustered;
+    snapshot.entityContext = entityContext;
+    snapshot.entityDeclarations = entityDeclarations;
+    for (Map.Entry<Integer, IntegerMap<String>> entry : paneIndexToNames.entrySet()) {
+      snapshot.paneIndexToNames.put(entry.getKey(), new TreeMap<>(entry.getValue()));
+    }
+    snapshot.generics.putAll(generics);
+    snapshot.ports.putAll(ports);
+    return snapshot;
+  }
+
   public boolean isClustered() {
     return clustered;
   }
@@ -71,7 +126,7 @@ class InterfaceDeclaration {
   public design_unit emitAsEntity(EntityName name) {
     context_clause context =
         entityContext != null ? entityContext : new context_clause(listOptional());
-    entity_identifier identifier = forString(name.entity().toString()).entity_identifier();
+    entity_identifier identifier = repr(name.entity().toString()).as(ENTITY_IDENTIFIER);
     entity_header header = new entity_header(createGenerics(), createPorts());
     entity_declaration declaration =
         new entity_declaration(identifier, header, new entity_declarative_part(entityDeclarations),
@@ -81,11 +136,13 @@ class InterfaceDeclaration {
   }
 
   public component_declaration emitAsComponent(ComponentName name) {
-    component_identifier identifier = forString(name.component().toString()).component_identifier();
+    component_identifier identifier = repr(name.component().toString()).as(COMPONENT_IDENTIFIER);
     component_header header = new component_header(createGenerics(), createPorts());
     return new component_declaration(identifier, optional(token(IS)), header, optional());
   }
 
+  // Declarations are shared by all units emitted from this interface, possibly in different
+  // threads, while formatting a unit modifies its tokens.
   private NodeOptional createGenerics() {
     if (generics.isEmpty()) {
       return optional();
@@ -93,8 +150,8 @@ class InterfaceDeclaration {
       NodeListOptional rest = listOptional();
       interface_constant_declaration first =
           split(generics.values(), tokenSupplier(SEMICOLON), rest);
-      return optional(new formal_generic_clause(
-          new generic_clause(new generic_list(new generic_interface_list(first, rest)))));
+      return optional(NodeCopier.copy(new formal_generic_clause(
+          new generic_clause(new generic_list(new generic_interface_list(first, rest))))));
     }
   }
 
@@ -104,11 +161,22 @@ class InterfaceDeclaration {
     } else {
       NodeListOptional rest = listOptional();
       interface_signal_declaration first = split(ports.values(), tokenSupplier(SEMICOLON), rest);
-      return optional(new formal_port_clause(
-          new port_clause(new port_list(new port_interface_list(first, rest)))));
+      return optional(NodeCopier.copy(new formal_port_clause(
+          new port_clause(new port_list(new port_interface_list(first, rest))))));
     }
   }
 
+  static class Snapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final TreeMap<Integer, interface_constant_declaration> generics = Maps.newTreeMap();
+    private final TreeMap<Integer, interface_signal_declaration> ports = Maps.newTreeMap();
+    private final TreeMap<Integer, TreeMap<Integer, String>> paneIndexToNames =
+        Maps.newTreeMap();
+    private NodeListOptional entityDeclarations;
+    private context_clause entityContext;
+    private boolean clustered;
+  }
+
   private class BuilderVisitor extends VIElementsVisitor<TranslationException> {
     private final Map<UID, Integer> controlToPaneIndex = Maps.newHashMap();
     private final Map<UID, Integer> controlToClusterIndex = Maps.newHashMap();
@@ -190,20 +258,20 @@ class InterfaceDeclaration {
       NodeRepr declaration = repr(label.get());
       if (style == ControlStyle.NUMERIC_I32) {
         // This is a generic.
-        interface_constant_declaration generic = declaration.as().interface_constant_declaration();
+        interface_constant_declaration generic = declaration.as(INTERFACE_CONSTANT_DECLARATION);
         // Make the output less verbose.
         generic.nodeOptional = optional();
         generic.nodeOptional1 = optional();
         generics.put(listIndex, generic);
         // Save the mapping from port/generic name to the index in appropriate list.
-        refToListIndex.put(new IOReference(generic.identifier_list.identifier), listIndex);
+        refToListIndex.put(IOReference.of(generic.identifier_list.identifier), listIndex);
       } else if (style == ControlStyle.NUMERIC_DBL) {
         // This is a port.
-        interface_signal_declaration port = declaration.as().interface_signal_declaration();
+        interface_signal_declaration port = declaration.as(INTERFACE_SIGNAL_DECLARATION);
         port.nodeOptional = optional();
         ports.put(listIndex, port);
         // Save the mapping from port/generic name to the index in appropriate list.
-        refToListIndex.put(new IOReference(port.identifier_list.identifier), listIndex);
+        refToListIndex.put(IOReference.of(port.identifier_list.identifier), listIndex);
       } else {
         throw new SemanticException("Control style not recognised: %s", style);
       }
@@ -211,12 +279,12 @@ class InterfaceDeclaration {
 
     @Override
     protected void FormulaWithEntityContext(UID uid, NodeRepr expression) {
-      entityContext = expression.as().context_clause();
+      entityContext = expression.as(CONTEXT_CLAUSE);
     }
 
     @Override
     protected void FormulaWithEntityDeclarations(UID uid, NodeRepr expression) {
-      NodeListOptional extra = expression.as().entity_declarative_part().nodeListOptional;
+      NodeListOptional extra = expression.as(ENTITY_DECLARATIVE_PART).nodeListOptional;
       entityDeclarations.nodes.addAll(extra.nodes);
     }
   }
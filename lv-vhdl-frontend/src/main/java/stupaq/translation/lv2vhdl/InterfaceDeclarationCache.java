@@ -1,5 +1,6 @@
 package stupaq.translation.lv2vhdl;
 
+import com.google.common.base.Optional;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -16,19 +17,38 @@ import stupaq.translation.project.LVProjectReader;
 
 class InterfaceDeclarationCache {
   private final LVProjectReader project;
-  private final LoadingCache<VIPath, InterfaceDeclaration> cache = CacheBuilder.newBuilder()
-      .concurrencyLevel(1)
-      .build(new CacheLoader<VIPath, InterfaceDeclaration>() {
-        @Override
-        public InterfaceDeclaration load(VIPath viPath)
-            throws JAXBException, SAXException, IOException {
-          ParsedVI theVi = new ParsedVI(project.tools(), viPath);
-          return new InterfaceDeclaration(theVi);
-        }
-      });
+  private final Optional<InterfaceDeclarationStore> store;
+  private final LoadingCache<VIPath, InterfaceDeclaration> cache;
 
   public InterfaceDeclarationCache(LVProjectReader project) {
+    this(project, 1, Optional.<InterfaceDeclarationStore>absent());
+  }
+
+  public InterfaceDeclarationCache(LVProjectReader project, int concurrencyLevel,
+      Optional<InterfaceDeclarationStore> store) {
     this.project = project;
+    this.store = store;
+    cache = CacheBuilder.newBuilder()
+        .concurrencyLevel(concurrencyLevel)
+        .build(new CacheLoader<VIPath, InterfaceDeclaration>() {
+          @Override
+          public InterfaceDeclaration load(VIPath viPath)
+              throws JAXBException, SAXException, IOException {
+            if (store.isPresent()) {
+              Optional<InterfaceDeclaration> stored =
+                  store.get().load(viPath);
+              if (stored.isPresent()) {
+                return stored.get();
+              }
+            }
+            ParsedVI theVi = new ParsedVI(project.tools(), viPath);
+            InterfaceDeclaration declaration = new InterfaceDeclaration(theVi);
+            if (store.isPresent()) {
+              store.get().store(viPath, declaration);
+            }
+            return declaration;
+          }
+        });
   }
 
   public InterfaceDeclaration get(VIPath viPath) {
@@ -45,5 +65,8 @@ class InterfaceDeclarationCache {
 
   public void fill(VIPath path, InterfaceDeclaration entity) {
     cache.put(path, entity);
+    if (store.isPresent()) {
+      store.get().store(path, entity);
+    }
   }
 }
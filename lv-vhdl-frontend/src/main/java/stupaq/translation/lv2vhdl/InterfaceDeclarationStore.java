@@ -0,0 +1,107 @@
+package stupaq.translation.lv2vhdl;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import stupaq.labview.VIPath;
+import stupaq.translation.parsing.ParsedFilesCache;
+
+import static java.util.Arrays.asList;
+
+/**
+ * On-disk cache of interfaces of VIs, which survives between runs. Entries are keyed by the path of
+ * a VI together with its modification time and size, a modified VI simply misses the cache, and
+ * by versions of the grammar and of the translator, so that entries of older builds miss too.
+ */
+class InterfaceDeclarationStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InterfaceDeclarationStore.class);
+  private static final String ENTRY_SUFFIX = ".interface";
+  /** Bump whenever stored snapshots change meaning without a change of the hashed classes. */
+  private static final int FORMAT_VERSION = 1;
+  private static final HashCode GRAMMAR_VERSION = ParsedFilesCache.grammarVersion();
+  /** Identifies the code which builds interfaces, so that entries of older translators miss. */
+  private static final HashCode TRANSLATOR_VERSION = translatorVersion();
+  private final Path directory;
+
+  public InterfaceDeclarationStore(Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+  }
+
+  private static HashCode translatorVersion() {
+    List<Class<?>> classes = Lists.<Class<?>>newArrayList(InterfaceDeclarationStore.class,
+        InterfaceDeclaration.class, DeclarationOrdering.class, VIElementsVisitor.class);
+    classes.addAll(asList(InterfaceDeclaration.class.getDeclaredClasses()));
+    return ParsedFilesCache.classesVersion(classes.toArray(new Class<?>[classes.size()]));
+  }
+
+  private Optional<Path> entry(VIPath viPath) {
+    Path vi = viPath.path().toAbsolutePath();
+    try {
+      HashCode key = Hashing.sha1()
+          .newHasher()
+          .putInt(FORMAT_VERSION)
+          .putBytes(GRAMMAR_VERSION.asBytes())
+          .putBytes(TRANSLATOR_VERSION.asBytes())
+          .putUnencodedChars(vi.toString())
+          .putLong(Files.getLastModifiedTime(vi).toMillis())
+          .putLong(Files.size(vi))
+          .hash();
+      return Optional.of(directory.resolve(key + ENTRY_SUFFIX));
+    } catch (IOException e) {
+      LOGGER.debug("Cannot stat VI: {}", vi, e);
+      return Optional.absent();
+    }
+  }
+
+  public Optional<InterfaceDeclaration> load(VIPath viPath) {
+    Optional<Path> file = entry(viPath);
+    if (!file.isPresent() || !Files.isRegularFile(file.get())) {
+      return Optional.absent();
+    }
+    try (ObjectInputStream input = new ObjectInputStream(
+        new BufferedInputStream(Files.newInputStream(file.get())))) {
+      InterfaceDeclaration.Snapshot snapshot = (InterfaceDeclaration.Snapshot) input.readObject();
+      LOGGER.debug("Interface of: {} loaded from cache", viPath);
+      return Optional.of(new InterfaceDeclaration(snapshot));
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      LOGGER.warn("Discarding unreadable cache entry: {}", file.get(), e);
+      return Optional.absent();
+    }
+  }
+
+  public void store(VIPath viPath, InterfaceDeclaration declaration) {
+    Optional<Path> file = entry(viPath);
+    if (!file.isPresent() || Files.isRegularFile(file.get())) {
+      return;
+    }
+    try {
+      Path temporary =
+          Files.createTempFile(directory, file.get().getFileName().toString(), ".tmp");
+      try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporary));
+           ObjectOutputStream objects = new ObjectOutputStream(output)) {
+        objects.writeObject(declaration.snapshot());
+      }
+      // Readers never observe partially written entries.
+      Files.move(temporary, file.get(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warn("Cannot store cache entry: {}", file.get(), e);
+    }
+  }
+}
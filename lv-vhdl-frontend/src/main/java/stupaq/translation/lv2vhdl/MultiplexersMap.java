@@ -4,6 +4,8 @@ import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Verify;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 
 import java.util.List;
@@ -19,13 +21,19 @@ import static java.util.Arrays.asList;
 import static stupaq.translation.errors.LocalisedSemanticException.semanticCheck;
 
 class MultiplexersMap {
+  /** Kinds of elements which must be visited before any multiplexer is looked up. */
+  public static final List<String> PARSERS_ORDER =
+      asList(Bundler.XML_NAME, Unbundler.XML_NAME, ControlCluster.XML_NAME);
   private final Map<Endpoint, Multiplexer> multiplexers = Maps.newHashMap();
   private final EndpointsMap terminals;
   private final Map<UID, Endpoint> controlToClusterEndpoint = Maps.newHashMap();
 
-  public MultiplexersMap(EndpointsMap terminals, ParsedVI theVi) {
+  public MultiplexersMap(EndpointsMap terminals) {
     this.terminals = terminals;
-    theVi.accept(new BuilderVisitor());
+  }
+
+  public VIElementsVisitor<TranslationException> builder() {
+    return new BuilderVisitor();
   }
 
   public Iterable<Endpoint> findMultiplexedConnections(UID controlUID) {
@@ -46,7 +54,16 @@ class MultiplexersMap {
   private class BuilderVisitor extends VIElementsVisitor<TranslationException> {
     @Override
     public Iterable<String> parsersOrder() {
-      return asList(Bundler.XML_NAME, Unbundler.XML_NAME, ControlCluster.XML_NAME);
+      return PARSERS_ORDER;
+    }
+
+    @Override
+    public ListMultimap<String, String> parsersRequired() {
+      ImmutableListMultimap.Builder<String, String> required = ImmutableListMultimap.builder();
+      for (String kind : PARSERS_ORDER) {
+        required.putAll(kind, EndpointsMap.PARSERS_ORDER);
+      }
+      return required.build();
     }
 
     @Override
@@ -1,45 +1,80 @@
 package stupaq.translation.lv2vhdl;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 import stupaq.labview.VIPath;
 import stupaq.labview.scripting.tools.HighlightByUID;
+import stupaq.translation.errors.TranslationException;
 import stupaq.translation.naming.ArchitectureName;
 import stupaq.translation.naming.Identifier;
+import stupaq.translation.naming.IdentifierPool;
 import stupaq.translation.naming.InstantiableName;
 import stupaq.translation.project.LVProjectReader;
 import stupaq.translation.project.VHDLProjectWriter;
+import stupaq.vhdl93.ast.design_unit;
 
-class TranslationContext {
+class TranslationContext implements AutoCloseable {
   private static final Logger LOGGER = LoggerFactory.getLogger(TranslationContext.class);
   private final LVProjectReader projectFrom;
   private final VHDLProjectWriter projectTo;
   private final InterfaceDeclarationCache declarationCache;
+  private final Optional<ForkJoinPool> pool;
+  /** Names of this translation, bound to every thread while it translates a VI. */
+  private final IdentifierPool names = new IdentifierPool();
+  private final ConcurrentMap<VIPath, ForkJoinTask<Optional<TranslatedVI>>> scheduled =
+      Maps.newConcurrentMap();
 
   public TranslationContext(LVProjectReader projectFrom, VHDLProjectWriter projectTo)
       throws Exception {
+    this(projectFrom, projectTo, 1, Optional.<InterfaceDeclarationStore>absent());
+  }
+
+  /**
+   * With more than one thread, VIs are translated ahead of time by a work-stealing pool, results
+   * are still written in the order in which they are requested, so that the output does not depend
+   * on the number of threads.
+   */
+  public TranslationContext(LVProjectReader projectFrom, VHDLProjectWriter projectTo, int threads,
+      Optional<InterfaceDeclarationStore> interfaces) throws Exception {
     this.projectFrom = projectFrom;
     this.projectTo = projectTo;
-    declarationCache = new InterfaceDeclarationCache(projectFrom);
+    declarationCache = new InterfaceDeclarationCache(projectFrom, threads, interfaces);
+    pool = threads > 1 ? Optional.of(new ForkJoinPool(threads)) : Optional.<ForkJoinPool>absent();
+  }
+
+  /** Hints that provided VIs will be translated, this is a no-op for sequential translation. */
+  public void prefetch(Iterable<VIPath> paths) {
+    if (pool.isPresent()) {
+      for (VIPath path : paths) {
+        schedule(path);
+      }
+    }
   }
 
   public void translate(VIPath path) throws Exception {
-    try {
-      InstantiableName element = Identifier.parse(path.getBaseName());
-      LOGGER.debug("VI instance: {} refers to: {}", path, element);
-      if (!(element instanceof ArchitectureName)) {
-        LOGGER.warn("Component will be emitted together with accompanying architecture.");
-        return;
+    try (IdentifierPool.Binding binding = names.bind()) {
+      Optional<TranslatedVI> translated = pool.isPresent() ? await(schedule(path)) : analyse(path);
+      if (translated.isPresent()) {
+        TranslatedVI vi = translated.get();
+        projectTo.writeEntity(vi.name.entity(), vi.entity);
+        projectTo.writeArchitecture(vi.name, vi.architecture);
+        for (VIPath dependency : vi.dependencies) {
+          projectFrom.addDependency(dependency);
+        }
       }
-      ArchitectureName name = (ArchitectureName) element;
-      ParsedVI theVi = new ParsedVI(projectFrom.tools(), path);
-      InterfaceDeclaration entity = new InterfaceDeclaration(theVi);
-      declarationCache.fill(path, entity);
-      projectTo.writeEntity(name.entity(), entity.emitAsEntity(name.entity()));
-      ArchitectureDefinition architecture =
-          new ArchitectureDefinition(declarationCache, projectFrom, theVi);
-      projectTo.writeArchitecture(name, architecture.emitAsArchitecture(name));
     } catch (LocalisedException e) {
       if (e.isLocalised()) {
         projectFrom.tools().get(HighlightByUID.class).apply(e.getVI(), e.getUID());
@@ -47,4 +82,91 @@ class TranslationContext {
       throw e.getCause();
     }
   }
+
+  @Override
+  public void close() {
+    if (pool.isPresent()) {
+      pool.get().shutdownNow();
+    }
+  }
+
+  private ForkJoinTask<Optional<TranslatedVI>> schedule(final VIPath path) {
+    ForkJoinTask<Optional<TranslatedVI>> task = scheduled.get(path);
+    if (task != null) {
+      return task;
+    }
+    task = ForkJoinTask.adapt(new Callable<Optional<TranslatedVI>>() {
+      @Override
+      public Optional<TranslatedVI> call() throws Exception {
+        try (IdentifierPool.Binding binding = names.bind()) {
+          Optional<TranslatedVI> translated = analyse(path);
+          if (translated.isPresent()) {
+            // Dependencies are translated eagerly, we do not know yet if they will be requested.
+            for (VIPath dependency : translated.get().dependencies) {
+              schedule(dependency);
+            }
+          }
+          return translated;
+        }
+      }
+    });
+    ForkJoinTask<Optional<TranslatedVI>> existing = scheduled.putIfAbsent(path, task);
+    if (existing != null) {
+      return existing;
+    }
+    if (ForkJoinTask.inForkJoinPool()) {
+      task.fork();
+    } else {
+      pool.get().execute(task);
+    }
+    return task;
+  }
+
+  private static Optional<TranslatedVI> await(ForkJoinTask<Optional<TranslatedVI>> task)
+      throws Exception {
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause(), Exception.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private Optional<TranslatedVI> analyse(VIPath path) throws Exception {
+    InstantiableName element = Identifier.parse(path.getBaseName());
+    LOGGER.debug("VI instance: {} refers to: {}", path, element);
+    if (!(element instanceof ArchitectureName)) {
+      LOGGER.warn("Component will be emitted together with accompanying architecture.");
+      return Optional.absent();
+    }
+    ArchitectureName name = (ArchitectureName) element;
+    ParsedVI theVi = new ParsedVI(projectFrom.tools(), path);
+    InterfaceDeclaration entity = new InterfaceDeclaration();
+    ArchitectureDefinition architecture = new ArchitectureDefinition(declarationCache);
+    // All analyses share a single traversal of the VI.
+    List<VIElementsVisitor<TranslationException>> visitors = Lists.newArrayList();
+    visitors.add(entity.builder());
+    visitors.addAll(architecture.builders());
+    theVi.accept(new VIElementsMultiplexer(visitors));
+    entity.finish();
+    architecture.finish();
+    declarationCache.fill(path, entity);
+    return Optional.of(new TranslatedVI(name, entity.emitAsEntity(name.entity()),
+        architecture.emitAsArchitecture(name), architecture.dependencies()));
+  }
+
+  private static class TranslatedVI {
+    final ArchitectureName name;
+    final design_unit entity;
+    final design_unit architecture;
+    final List<VIPath> dependencies;
+
+    TranslatedVI(ArchitectureName name, design_unit entity, design_unit architecture,
+        List<VIPath> dependencies) {
+      this.name = name;
+      this.entity = entity;
+      this.architecture = architecture;
+      this.dependencies = dependencies;
+    }
+  }
 }
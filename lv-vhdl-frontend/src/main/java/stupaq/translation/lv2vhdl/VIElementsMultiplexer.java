@@ -0,0 +1,317 @@
+package stupaq.translation.lv2vhdl;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Verify;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+import stupaq.labview.UID;
+import stupaq.labview.VIPath;
+import stupaq.labview.hierarchy.Bundler;
+import stupaq.labview.hierarchy.ConnectorPane;
+import stupaq.labview.hierarchy.Control;
+import stupaq.labview.hierarchy.ControlCluster;
+import stupaq.labview.hierarchy.FormulaNode;
+import stupaq.labview.hierarchy.Panel;
+import stupaq.labview.hierarchy.RingConstant;
+import stupaq.labview.hierarchy.SubVI;
+import stupaq.labview.hierarchy.Terminal;
+import stupaq.labview.hierarchy.Tunnel;
+import stupaq.labview.hierarchy.Unbundler;
+import stupaq.labview.hierarchy.Wire;
+import stupaq.labview.scripting.tools.ControlStyle;
+import stupaq.translation.errors.TranslationException;
+import stupaq.translation.parsing.NodeRepr;
+import stupaq.vhdl93.ast.constant_declaration;
+import stupaq.vhdl93.ast.expression;
+import stupaq.vhdl93.ast.signal_declaration;
+
+/**
+ * Fans out a single traversal of the VI to a number of visitors. Element kinds are visited in an
+ * order consistent with {@link #parsersOrder()} and {@link #parsersRequired()} of every delegate,
+ * and labels of wires and formulas are classified only once.
+ */
+class VIElementsMultiplexer extends VIElementsVisitor<TranslationException> {
+  private final List<String> order;
+  private final ListMultimap<String, VIElementsVisitor<TranslationException>> delegates =
+      ArrayListMultimap.create();
+  private final List<VIElementsVisitor<TranslationException>> formulasWithEndpoints =
+      Lists.newArrayList();
+
+  public VIElementsMultiplexer(Iterable<VIElementsVisitor<TranslationException>> visitors) {
+    super(commonEndpoints(visitors).orNull());
+    for (VIElementsVisitor<TranslationException> visitor : visitors) {
+      for (String kind : visitor.parsersOrder()) {
+        delegates.put(kind, visitor);
+      }
+      // Only these would classify formulas which refer to endpoints when run separately.
+      if (visitor.endpointsMap() != null &&
+          delegates.containsEntry(FormulaNode.XML_NAME, visitor)) {
+        formulasWithEndpoints.add(visitor);
+      }
+    }
+    order = mergeOrders(visitors);
+  }
+
+  private static Optional<EndpointsMap> commonEndpoints(
+      Iterable<VIElementsVisitor<TranslationException>> visitors) {
+    EndpointsMap common = null;
+    for (VIElementsVisitor<TranslationException> visitor : visitors) {
+      EndpointsMap endpoints = visitor.endpointsMap();
+      if (endpoints != null) {
+        Verify.verify(common == null || common == endpoints, "Visitors use different endpoints.");
+        common = endpoints;
+      }
+    }
+    return Optional.fromNullable(common);
+  }
+
+  /**
+   * Merges orders and requirements of all visitors, if two kinds are not ordered by any of them,
+   * the one seen first (in order of registration) goes first.
+   */
+  private static List<String> mergeOrders(
+      Iterable<VIElementsVisitor<TranslationException>> visitors) {
+    List<String> kinds = Lists.newArrayList();
+    Map<String, Integer> kindToIndex = Maps.newHashMap();
+    SetMultimap<Integer, Integer> successors = LinkedHashMultimap.create();
+    Map<Integer, Integer> predecessorsCount = Maps.newHashMap();
+    for (VIElementsVisitor<TranslationException> visitor : visitors) {
+      Integer previous = null;
+      for (String kind : visitor.parsersOrder()) {
+        Integer index = kindToIndex.get(kind);
+        if (index == null) {
+          index = kinds.size();
+          kinds.add(kind);
+          kindToIndex.put(kind, index);
+          predecessorsCount.put(index, 0);
+        }
+        if (previous != null) {
+          addEdge(successors, predecessorsCount, previous, index);
+        }
+        previous = index;
+      }
+    }
+    for (VIElementsVisitor<TranslationException> visitor : visitors) {
+      for (Map.Entry<String, String> entry : visitor.parsersRequired().entries()) {
+        Integer index = kindToIndex.get(entry.getKey());
+        Integer required = kindToIndex.get(entry.getValue());
+        Verify.verify(index != null, "Visitor requires elements before unseen: %s.",
+            entry.getKey());
+        Verify.verify(required != null, "No visitor sees required elements: %s.",
+            entry.getValue());
+        addEdge(successors, predecessorsCount, required, index);
+      }
+    }
+    SortedSet<Integer> ready = Sets.newTreeSet();
+    for (Map.Entry<Integer, Integer> entry : predecessorsCount.entrySet()) {
+      if (entry.getValue() == 0) {
+        ready.add(entry.getKey());
+      }
+    }
+    ImmutableList.Builder<String> order = ImmutableList.builder();
+    int visited = 0;
+    while (!ready.isEmpty()) {
+      Integer index = ready.first();
+      ready.remove(index);
+      order.add(kinds.get(index));
+      ++visited;
+      for (Integer next : successors.get(index)) {
+        int count = predecessorsCount.get(next) - 1;
+        predecessorsCount.put(next, count);
+        if (count == 0) {
+          ready.add(next);
+        }
+      }
+    }
+    Verify.verify(visited == kinds.size(), "Visitors require contradicting orders of elements.");
+    return order.build();
+  }
+
+  private static void addEdge(SetMultimap<Integer, Integer> successors,
+      Map<Integer, Integer> predecessorsCount, Integer from, Integer to) {
+    if (successors.put(from, to)) {
+      predecessorsCount.put(to, predecessorsCount.get(to) + 1);
+    }
+  }
+
+  @Override
+  public Iterable<String> parsersOrder() {
+    return order;
+  }
+
+  @Override
+  public void Panel(Optional<UID> ownerUID, UID uid) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(Panel.XML_NAME)) {
+      visitor.Panel(ownerUID, uid);
+    }
+  }
+
+  @Override
+  public void ConnectorPane(List<UID> controls) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(ConnectorPane.XML_NAME)) {
+      visitor.ConnectorPane(controls);
+    }
+  }
+
+  @Override
+  public void Terminal(UID ownerUID, UID uid, UID wireUID, boolean isSource, String name) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(Terminal.XML_NAME)) {
+      visitor.Terminal(ownerUID, uid, wireUID, isSource, name);
+    }
+  }
+
+  @Override
+  public void Tunnel(UID ownerUID, UID uid, List<UID> insideTermUIDs, UID outsideTermUID) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(Tunnel.XML_NAME)) {
+      visitor.Tunnel(ownerUID, uid, insideTermUIDs, outsideTermUID);
+    }
+  }
+
+  @Override
+  public void Bundler(UID ownerUID, UID uid, UID outputUIDs, List<UID> inputUIDs) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(Bundler.XML_NAME)) {
+      visitor.Bundler(ownerUID, uid, outputUIDs, inputUIDs);
+    }
+  }
+
+  @Override
+  public void Unbundler(UID ownerUID, UID uid, UID inputUID, List<UID> outputUIDs) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(Unbundler.XML_NAME)) {
+      visitor.Unbundler(ownerUID, uid, inputUID, outputUIDs);
+    }
+  }
+
+  @Override
+  public void ControlCluster(UID ownerUID, UID uid, Optional<String> label, UID terminalUID,
+      boolean isIndicator, List<UID> controlUIDs) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(
+        ControlCluster.XML_NAME)) {
+      visitor.ControlCluster(ownerUID, uid, label, terminalUID, isIndicator, controlUIDs);
+    }
+  }
+
+  @Override
+  public void Control(UID ownerUID, UID uid, Optional<String> label, UID terminalUID,
+      boolean isIndicator, ControlStyle style, String description) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(
+        Control.NUMERIC_XML_NAME)) {
+      visitor.Control(ownerUID, uid, label, terminalUID, isIndicator, style, description);
+    }
+  }
+
+  @Override
+  public void RingConstant(UID owner, UID uid, Optional<String> label, UID terminalUID,
+      Map<String, Object> stringsAndValues) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(RingConstant.XML_NAME)) {
+      visitor.RingConstant(owner, uid, label, terminalUID, stringsAndValues);
+    }
+  }
+
+  @Override
+  public void SubVI(UID owner, UID uid, List<UID> termUIDs, VIPath viPath, String description) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(SubVI.XML_NAME)) {
+      visitor.SubVI(owner, uid, termUIDs, viPath, description);
+    }
+  }
+
+  @Override
+  protected void WirePlain(UID uid) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(Wire.XML_NAME)) {
+      visitor.WirePlain(uid);
+    }
+  }
+
+  @Override
+  protected void WireWithExpression(UID uid, NodeRepr label, expression expression) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(Wire.XML_NAME)) {
+      visitor.WireWithExpression(uid, label, expression);
+    }
+  }
+
+  @Override
+  protected void WireWithSignalDeclaration(UID uid, NodeRepr label,
+      signal_declaration declaration) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(Wire.XML_NAME)) {
+      visitor.WireWithSignalDeclaration(uid, label, declaration);
+    }
+  }
+
+  @Override
+  protected void FormulaWithEntityContext(UID uid, NodeRepr expression) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(FormulaNode.XML_NAME)) {
+      visitor.FormulaWithEntityContext(uid, expression);
+    }
+  }
+
+  @Override
+  protected void FormulaWithEntityDeclarations(UID uid, NodeRepr expression) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(FormulaNode.XML_NAME)) {
+      visitor.FormulaWithEntityDeclarations(uid, expression);
+    }
+  }
+
+  @Override
+  protected void FormulaWithArchitectureContext(UID uid, NodeRepr expression) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(FormulaNode.XML_NAME)) {
+      visitor.FormulaWithArchitectureContext(uid, expression);
+    }
+  }
+
+  @Override
+  protected void FormulaWithArchitectureDeclarations(UID uid, NodeRepr expression) {
+    for (VIElementsVisitor<TranslationException> visitor : delegates.get(FormulaNode.XML_NAME)) {
+      visitor.FormulaWithArchitectureDeclarations(uid, expression);
+    }
+  }
+
+  @Override
+  protected void FormulaWithConcurrentStatements(UID uid, NodeRepr expression,
+      Iterable<Endpoint> parameters) {
+    for (VIElementsVisitor<TranslationException> visitor : formulasWithEndpoints) {
+      visitor.FormulaWithConcurrentStatements(uid, expression, parameters);
+    }
+  }
+
+  @Override
+  protected void FormulaWithProcessStatement(UID uid, NodeRepr expression,
+      Iterable<Endpoint> parameters) {
+    for (VIElementsVisitor<TranslationException> visitor : formulasWithEndpoints) {
+      visitor.FormulaWithProcessStatement(uid, expression, parameters);
+    }
+  }
+
+  @Override
+  protected void FormulaWithLvalue(UID uid, NodeRepr expression, Endpoint lvalue,
+      Iterable<Endpoint> otherParameters) {
+    for (VIElementsVisitor<TranslationException> visitor : formulasWithEndpoints) {
+      visitor.FormulaWithLvalue(uid, expression, lvalue, otherParameters);
+    }
+  }
+
+  @Override
+  protected void FormulaWithRvalue(UID uid, NodeRepr expression, Endpoint rvalue,
+      Iterable<Endpoint> otherParameters) {
+    for (VIElementsVisitor<TranslationException> visitor : formulasWithEndpoints) {
+      visitor.FormulaWithRvalue(uid, expression, rvalue, otherParameters);
+    }
+  }
+
+  @Override
+  protected void FormulaWithDeclaredConstant(UID uid, constant_declaration constant,
+      Iterable<Endpoint> parameters) {
+    for (VIElementsVisitor<TranslationException> visitor : formulasWithEndpoints) {
+      visitor.FormulaWithDeclaredConstant(uid, constant, parameters);
+    }
+  }
+}
@@ -3,6 +3,8 @@ package stupaq.translation.lv2vhdl;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Sets;
 
 import org.slf4j.Logger;
@@ -13,9 +15,7 @@ import java.util.Set;
 
 import stupaq.labview.UID;
 import stupaq.labview.parsing.NoOpVisitor;
-import stupaq.translation.errors.SyntaxException;
 import stupaq.translation.parsing.NodeRepr;
-import stupaq.translation.parsing.VHDL93ParserPartial;
 import stupaq.vhdl93.ast.constant_declaration;
 import stupaq.vhdl93.ast.expression;
 import stupaq.vhdl93.ast.signal_declaration;
@@ -26,7 +26,9 @@ import static com.google.common.collect.FluentIterable.from;
 import static stupaq.translation.TranslationConventions.*;
 import static stupaq.translation.errors.LocalisedSemanticException.semanticCheck;
 import static stupaq.translation.parsing.NodeRepr.repr;
-import static stupaq.translation.parsing.VHDL93ParserPartial.Parsers.forString;
+import static stupaq.translation.parsing.Production.CONSTANT_DECLARATION;
+import static stupaq.translation.parsing.Production.EXPRESSION;
+import static stupaq.translation.parsing.Production.SIGNAL_DECLARATION;
 import static stupaq.vhdl93.VHDL93ParserConstants.ASSIGN;
 import static stupaq.vhdl93.VHDL93ParserConstants.SEMICOLON;
 import static stupaq.vhdl93.VHDL93ParserTotal.tokenString;
@@ -44,26 +46,36 @@ abstract class VIElementsVisitor<E extends Exception> extends NoOpVisitor<E> {
     this.endpoints = endpoints;
   }
 
+  final EndpointsMap endpointsMap() {
+    return endpoints;
+  }
+
+  /**
+   * Maps kinds of elements from {@link #parsersOrder()} to kinds which other visitors must have
+   * seen in full before this one sees any element of the former kind.
+   */
+  public ListMultimap<String, String> parsersRequired() {
+    return ImmutableListMultimap.of();
+  }
+
   @Override
   public final void Wire(UID ownerUID, UID uid, Optional<String> label) throws E {
     if (label.isPresent()) {
-      try {
-        String declString = label.get().trim();
-        if (!declString.endsWith(tokenString(SEMICOLON))) {
-          declString += tokenString(SEMICOLON);
-        }
-        NodeRepr repr = repr(declString);
-        signal_declaration declaration = repr.as().signal_declaration();
-        WireWithSignalDeclaration(uid, repr, declaration);
+      String declString = label.get().trim();
+      if (!declString.endsWith(tokenString(SEMICOLON))) {
+        declString += tokenString(SEMICOLON);
+      }
+      NodeRepr declRepr = repr(declString);
+      Optional<signal_declaration> declaration = declRepr.tryAs(SIGNAL_DECLARATION);
+      if (declaration.isPresent()) {
+        WireWithSignalDeclaration(uid, declRepr, declaration.get());
         return;
-      } catch (SyntaxException ignored) {
       }
-      try {
-        NodeRepr repr = repr(label.get());
-        expression expression = repr.as().expression();
-        WireWithExpression(uid, repr, expression);
+      NodeRepr exprRepr = repr(label.get());
+      Optional<expression> expression = exprRepr.tryAs(EXPRESSION);
+      if (expression.isPresent()) {
+        WireWithExpression(uid, exprRepr, expression.get());
         return;
-      } catch (SyntaxException ignored) {
       }
     }
     semanticCheck(!label.isPresent(), "Cannot recognize label of the wire.");
@@ -110,13 +122,12 @@ abstract class VIElementsVisitor<E extends Exception> extends NoOpVisitor<E> {
       return;
     }
     if (label.isPresent()) {
-      try {
-        VHDL93ParserPartial parser =
-            forString(label.get() + tokenString(ASSIGN) + content + tokenString(SEMICOLON));
-        constant_declaration constant = parser.constant_declaration();
-        FormulaWithDeclaredConstant(uid, constant, parameters);
+      Optional<constant_declaration> constant =
+          repr(label.get() + tokenString(ASSIGN) + content + tokenString(SEMICOLON)).tryAs(
+              CONSTANT_DECLARATION);
+      if (constant.isPresent()) {
+        FormulaWithDeclaredConstant(uid, constant.get(), parameters);
         return;
-      } catch (SyntaxException ignored) {
       }
     }
     Endpoint lvalue = null, rvalue = null;
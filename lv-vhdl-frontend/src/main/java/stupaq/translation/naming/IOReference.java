@@ -1,28 +1,32 @@
 package stupaq.translation.naming;
 
-import com.google.common.base.VerifyException;
-
-import java.io.StringReader;
-
-import stupaq.vhdl93.ParseException;
-import stupaq.vhdl93.VHDL93ParserTotal;
+import stupaq.vhdl93.VHDL93ParserConstants;
+import stupaq.vhdl93.ast.NodeChoice;
+import stupaq.vhdl93.ast.NodeToken;
 import stupaq.vhdl93.ast.identifier;
 
 public class IOReference extends Identifier {
-  private IOReference(String name) {
-    super(name);
+  private static final String EXTENDED_IDENTIFIER_DELIMITER = "\\";
+  /** Which of the alternatives of the identifier production this reference matches. */
+  private final int choice;
+
+  IOReference(String normalised, IdentifierPool pool, int id) {
+    super(normalised, pool, id);
+    choice = normalised.startsWith(EXTENDED_IDENTIFIER_DELIMITER) ? 1 : 0;
   }
 
-  public IOReference(identifier n) {
-    this(n.representation());
+  /** Returns the reference interned in the pool bound to the calling thread. */
+  public static IOReference of(identifier n) {
+    return IdentifierPool.current().reference(n);
   }
 
+  /**
+   * Builds a fresh identifier node, which the caller is free to modify. The reference is a valid
+   * identifier, so the node is assembled directly instead of being parsed.
+   */
   public identifier asIdentifier() {
-    try {
-      return new VHDL93ParserTotal(new StringReader(toString())).identifier();
-    } catch (ParseException e) {
-      // This can not happen.
-      throw new VerifyException("Cannot parse reference as an identifier.");
-    }
+    int kind = choice == 0 ? VHDL93ParserConstants.basic_identifier :
+        VHDL93ParserConstants.extended_identifier;
+    return new identifier(new NodeChoice(new NodeToken(toString(), kind, -1, -1, -1, -1), choice));
   }
 }
@@ -32,34 +32,52 @@ public class Identifier {
   private static final Pattern ENTITY_INSTANTIATION_PATTERN =
       compile("(?:|(?<lib>[^()]+))\\.(?<ent>[^.()]+)(?:|\\((?<arch>[^.()]+)\\))");
   private final String string;
+  private final IdentifierPool pool;
+  private final int id;
 
-  public Identifier(identifier n) {
-    this(n.representation());
+  protected Identifier(String string) {
+    this(normalise(string), null, -1);
   }
 
-  protected Identifier(String string) {
+  /** Creates an interned name, the string must be already normalised. */
+  Identifier(String normalised, IdentifierPool pool, int id) {
+    this.string = normalised;
+    this.pool = pool;
+    this.id = id;
+  }
+
+  static String normalise(String string) {
     Preconditions.checkNotNull(string);
     string = string.trim().toLowerCase();
     Preconditions.checkArgument(!CharMatcher.WHITESPACE.matchesAnyOf(string));
-    this.string = string;
+    return string;
+  }
+
+  /** Returns the name interned in the pool bound to the calling thread. */
+  public static Identifier of(identifier n) {
+    return IdentifierPool.current().identifier(n);
+  }
+
+  private static Identifier of(String string) {
+    return IdentifierPool.current().identifier(string);
   }
 
   public static EntityName entity(entity_declaration n) {
-    return new EntityName(DEFAULT_LIBRARY, new Identifier(n.entity_identifier.identifier));
+    return new EntityName(DEFAULT_LIBRARY, of(n.entity_identifier.identifier));
   }
 
   public static EntityName entity(entity_name n) {
     String id = n.firstName();
     id = id.substring(id.lastIndexOf(LIBRARY_SEPARATOR) + 1);
-    return new EntityName(DEFAULT_LIBRARY, new Identifier(id));
+    return new EntityName(DEFAULT_LIBRARY, of(id));
   }
 
   public static ComponentName component(ArchitectureName arch, component_declaration n) {
-    return new ComponentName(arch, new Identifier(n.component_identifier.identifier));
+    return new ComponentName(arch, of(n.component_identifier.identifier));
   }
 
   public static ArchitectureName architecture(EntityName entity, architecture_declaration n) {
-    return new ArchitectureName(entity, new Identifier(n.architecture_identifier.identifier));
+    return new ArchitectureName(entity, of(n.architecture_identifier.identifier));
   }
 
   public static InstantiableName instantiation(final ArchitectureBindingResolver resolver,
@@ -76,7 +94,7 @@ public class Identifier {
 
       @Override
       public void visit(component_identifier n) {
-        name = new ComponentName(architecture, new Identifier(n.identifier));
+        name = new ComponentName(architecture, of(n.identifier));
       }
 
       @Override
@@ -88,9 +106,9 @@ public class Identifier {
             matcher.group("arch");
         missingIf(!DEFAULT_LIBRARY.toString().equals(library),
             "Non-default libraries: %s are not supported.", library);
-        EntityName entityName = new EntityName(DEFAULT_LIBRARY, new Identifier(entity));
+        EntityName entityName = new EntityName(DEFAULT_LIBRARY, of(entity));
         if (architecture != null) {
-          name = new ArchitectureName(entityName, new Identifier(architecture));
+          name = new ArchitectureName(entityName, of(architecture));
         } else {
           name = resolver.getDefault(entityName);
           semanticNotNull(name, n, "Missing default architecture for: %s", entity);
@@ -111,9 +129,14 @@ public class Identifier {
         matcher.group("arch"), component = matcher.group("comp");
     missingIf(!DEFAULT_LIBRARY.toString().equals(library),
         "Non-default libraries: %s are not supported.", library);
-    EntityName entityName = new EntityName(DEFAULT_LIBRARY, new Identifier(entity));
-    ArchitectureName archName = new ArchitectureName(entityName, new Identifier(architecture));
-    return component == null ? archName : new ComponentName(archName, new Identifier(component));
+    EntityName entityName = new EntityName(DEFAULT_LIBRARY, of(entity));
+    ArchitectureName archName = new ArchitectureName(entityName, of(architecture));
+    return component == null ? archName : new ComponentName(archName, of(component));
+  }
+
+  /** Returns a dense id among names of the same kind in its pool, or -1 if it is not interned. */
+  public int id() {
+    return id;
   }
 
   @Override
@@ -123,8 +146,15 @@ public class Identifier {
 
   @Override
   public boolean equals(Object o) {
-    return this == o ||
-        !(o == null || getClass() != o.getClass()) && string.equals(((Identifier) o).string);
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    Identifier other = (Identifier) o;
+    // Names interned in the same pool are equal only if they are the same instance.
+    return (pool == null || pool != other.pool) && string.equals(other.string);
   }
 
   @Override
@@ -0,0 +1,115 @@
+package stupaq.translation.naming;
+
+import com.google.common.collect.Maps;
+
+import java.util.concurrent.ConcurrentMap;
+
+import stupaq.vhdl93.ast.NodeToken;
+import stupaq.vhdl93.ast.identifier;
+
+/**
+ * Canonical identifiers and references of a translation. Each spelling is normalised once, names
+ * interned in the same pool are equal only if they are the same instance. Identifiers and
+ * references get dense ids, each kind counted separately, which can index arrays and bit sets.
+ *
+ * A translation creates its own pool and binds it to every thread which works on it, static
+ * factories such as {@link Identifier#of(identifier)} intern names in the pool bound to the calling
+ * thread. Threads which are not bound to any pool use a private one. Names of different pools
+ * remain valid, but are compared by their strings.
+ */
+public final class IdentifierPool {
+  private static final ThreadLocal<IdentifierPool> CURRENT = new ThreadLocal<IdentifierPool>() {
+    @Override
+    protected IdentifierPool initialValue() {
+      return new IdentifierPool();
+    }
+  };
+  /** Both normalised strings and spellings which normalise to them are keys. */
+  private final ConcurrentMap<String, Identifier> identifiers = Maps.newConcurrentMap();
+  /** Both normalised strings and spellings which normalise to them are keys. */
+  private final ConcurrentMap<String, IOReference> references = Maps.newConcurrentMap();
+  private int identifiersCount;
+  private int referencesCount;
+
+  /** Returns the pool bound to the calling thread. */
+  public static IdentifierPool current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Binds this pool to the calling thread until the returned binding is closed, which restores the
+   * previously bound pool.
+   */
+  public Binding bind() {
+    Binding binding = new Binding(CURRENT.get());
+    CURRENT.set(this);
+    return binding;
+  }
+
+  private static String spelling(identifier n) {
+    return ((NodeToken) n.nodeChoice.choice).tokenImage;
+  }
+
+  /** Returns the number of identifiers interned so far, which bounds their ids. */
+  public synchronized int identifiersCount() {
+    return identifiersCount;
+  }
+
+  /** Returns the number of references interned so far, which bounds their ids. */
+  public synchronized int referencesCount() {
+    return referencesCount;
+  }
+
+  public Identifier identifier(identifier n) {
+    return identifier(spelling(n));
+  }
+
+  public Identifier identifier(String spelling) {
+    Identifier name = identifiers.get(spelling);
+    return name != null ? name : internIdentifier(spelling);
+  }
+
+  public IOReference reference(identifier n) {
+    return reference(spelling(n));
+  }
+
+  public IOReference reference(String spelling) {
+    IOReference reference = references.get(spelling);
+    return reference != null ? reference : internReference(spelling);
+  }
+
+  private synchronized Identifier internIdentifier(String spelling) {
+    String normalised = Identifier.normalise(spelling);
+    Identifier name = identifiers.get(normalised);
+    if (name == null) {
+      name = new Identifier(normalised, this, identifiersCount++);
+      identifiers.put(normalised, name);
+    }
+    identifiers.put(spelling, name);
+    return name;
+  }
+
+  private synchronized IOReference internReference(String spelling) {
+    String normalised = Identifier.normalise(spelling);
+    IOReference reference = references.get(normalised);
+    if (reference == null) {
+      reference = new IOReference(normalised, this, referencesCount++);
+      references.put(normalised, reference);
+    }
+    references.put(spelling, reference);
+    return reference;
+  }
+
+  public static final class Binding implements AutoCloseable {
+    private final IdentifierPool previous;
+
+    private Binding(IdentifierPool previous) {
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      CURRENT.set(previous);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package stupaq.translation.parsing;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import stupaq.translation.Configuration;
+import stupaq.translation.errors.ParseFailuresException;
+import stupaq.vhdl93.CharBufferCharStream;
+import stupaq.vhdl93.ParseException;
+import stupaq.vhdl93.TokenMgrError;
+import stupaq.vhdl93.VHDL93ParserTotal;
+import stupaq.vhdl93.ast.Node;
+import stupaq.vhdl93.ast.NodeList;
+import stupaq.vhdl93.ast.design_file;
+import stupaq.vhdl93.errors.Diagnostic;
+import stupaq.vhdl93.errors.ErrorSummary;
+
+/**
+ * Parses a number of VHDL files on a bounded pool of workers and concatenates design units of all
+ * of them into a single design file. The order of units is the order of files and units within
+ * each file, regardless of the order in which parsing finishes. Failures are collected for all
+ * files and reported together. In the recovering mode parsing carries on after syntax errors, all
+ * of them are reported and only design units without errors are returned.
+ */
+public class DesignFilesParser {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DesignFilesParser.class);
+  private final int threads;
+  private final Optional<ParsedFilesCache> cache;
+
+  public DesignFilesParser() {
+    this(Configuration.getParsingThreads(), Optional.<ParsedFilesCache>absent());
+  }
+
+  public DesignFilesParser(Optional<ParsedFilesCache> cache) {
+    this(Configuration.getParsingThreads(), cache);
+  }
+
+  public DesignFilesParser(int threads, Optional<ParsedFilesCache> cache) {
+    Preconditions.checkArgument(threads > 0, "Number of parsing threads must be positive");
+    this.threads = threads;
+    this.cache = cache;
+  }
+
+  protected design_file parseFile(Path file) throws IOException, ParseException {
+    return parseFile(file, Optional.<ErrorSummary>absent());
+  }
+
+  private design_file parseFile(Path file, Optional<ErrorSummary> errors)
+      throws IOException, ParseException {
+    byte[] content = Files.readAllBytes(file);
+    if (cache.isPresent()) {
+      Optional<design_file> cached = cache.get().load(content);
+      if (cached.isPresent()) {
+        LOGGER.debug("Parsed file: {} loaded from cache", file);
+        return cached.get();
+      }
+    }
+    LOGGER.debug("Parsing file: {}", file);
+    VHDL93ParserTotal parser = CharBufferCharStream.decode(content).parser();
+    design_file root;
+    if (errors.isPresent()) {
+      parser.setErrorHandler(errors.get());
+      root = parser.recoveringDesignFile();
+    } else {
+      root = parser.design_file();
+    }
+    // Partial results of recovering parse must not be taken for the whole file.
+    if (cache.isPresent() && (!errors.isPresent() || errors.get().errors() == 0)) {
+      cache.get().store(content, root);
+    }
+    return root;
+  }
+
+  public design_file parse(List<Path> files) throws IOException {
+    return parse(files, false).root();
+  }
+
+  public ParseReport parseRecovering(List<Path> files) throws IOException {
+    return parse(files, true);
+  }
+
+  private ParseReport parse(List<Path> files, boolean recover) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size() + 1));
+    try {
+      List<Future<design_file>> results = Lists.newArrayList();
+      List<Optional<ErrorSummary>> summaries = Lists.newArrayList();
+      for (final Path file : files) {
+        final Optional<ErrorSummary> errors =
+            recover ? Optional.of(new ErrorSummary()) : Optional.<ErrorSummary>absent();
+        summaries.add(errors);
+        results.add(executor.submit(new Callable<design_file>() {
+          @Override
+          public design_file call() throws Exception {
+            return parseFile(file, errors);
+          }
+        }));
+      }
+      Map<Path, Throwable> failures = Maps.newLinkedHashMap();
+      ListMultimap<Path, Diagnostic> diagnostics = ArrayListMultimap.create();
+      NodeList units = new NodeList();
+      for (int i = 0; i < files.size(); ++i) {
+        try {
+          for (Node unit : results.get(i).get().nodeList.nodes) {
+            units.addNode(unit);
+          }
+          for (ErrorSummary errors : summaries.get(i).asSet()) {
+            diagnostics.putAll(files.get(i), errors.diagnostics());
+          }
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof ParseException || cause instanceof TokenMgrError) {
+            failures.put(files.get(i), cause);
+          } else {
+            Throwables.propagateIfInstanceOf(cause, IOException.class);
+            throw Throwables.propagate(cause);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw Throwables.propagate(e);
+        }
+      }
+      if (!failures.isEmpty()) {
+        throw new ParseFailuresException(failures);
+      }
+      return new ParseReport(new design_file(units), diagnostics);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -1,15 +1,13 @@
 package stupaq.translation.parsing;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import com.google.common.base.Optional;
 
 import stupaq.vhdl93.ast.Node;
+import stupaq.vhdl93.ast.NodeCopier;
 import stupaq.vhdl93.ast.NodeToken;
 import stupaq.vhdl93.ast.identifier;
 import stupaq.vhdl93.ast.label;
-import stupaq.vhdl93.formatting.VHDLTreeFormatter;
-import stupaq.vhdl93.visitor.TreeDumper;
+import stupaq.vhdl93.formatting.VHDLTreePrinter;
 
 import static stupaq.translation.parsing.VHDL93ParserPartial.Parsers.forString;
 
@@ -35,13 +33,7 @@ public class NodeRepr {
     } else if (node instanceof label) {
       return repr((label) node);
     } else {
-      node.accept(new VHDLTreeFormatter());
-      try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-        node.accept(new TreeDumper(baos));
-        return repr(baos.toString().trim());
-      } catch (IOException ignored) {
-        return null;
-      }
+      return repr(VHDLTreePrinter.print(node).trim());
     }
   }
 
@@ -49,20 +41,27 @@ public class NodeRepr {
     return new NodeRepr(repr);
   }
 
-  @SuppressWarnings("unchecked")
+  /** Copies the node together with all tokens and special tokens, nothing is parsed again. */
   public static <T extends Node> T duplicate(T node) {
-    try {
-      return (T) VHDL93ParserPartial.class.getMethod(node.getClass().getSimpleName())
-          .invoke(repr(node).as());
-    } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-      throw new RuntimeException("Cannot find method for cloning.", e);
-    }
+    return NodeCopier.copy(node);
   }
 
   public VHDL93ParserPartial as() {
     return forString(representation);
   }
 
+  public <T extends Node> T as(Production<T> production) {
+    return SnippetParser.parse(representation, production);
+  }
+
+  public <T extends Node> Optional<T> tryAs(Production<T> production) {
+    return SnippetParser.tryParse(representation, production);
+  }
+
+  public Optional<Production<?>> classify(Production<?>... productions) {
+    return SnippetParser.classify(representation, productions);
+  }
+
   @Override
   public int hashCode() {
     return representation.hashCode();
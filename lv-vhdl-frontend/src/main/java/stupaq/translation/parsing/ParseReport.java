@@ -0,0 +1,48 @@
+package stupaq.translation.parsing;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map.Entry;
+
+import stupaq.vhdl93.ast.design_file;
+import stupaq.vhdl93.errors.Diagnostic;
+
+/** Design units which parsed without errors together with syntax errors found in all files. */
+public class ParseReport {
+  private final design_file root;
+  private final ImmutableListMultimap<Path, Diagnostic> diagnostics;
+
+  public ParseReport(design_file root, ListMultimap<Path, Diagnostic> diagnostics) {
+    this.root = root;
+    this.diagnostics = ImmutableListMultimap.copyOf(diagnostics);
+  }
+
+  public design_file root() {
+    return root;
+  }
+
+  public ImmutableListMultimap<Path, Diagnostic> diagnostics() {
+    return diagnostics;
+  }
+
+  public boolean hasErrors() {
+    return !diagnostics.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("Syntax errors: ").append(diagnostics.size()).append(" in ")
+        .append(diagnostics.keySet().size()).append(" file(s)");
+    for (Entry<Path, Collection<Diagnostic>> entry : diagnostics.asMap().entrySet()) {
+      builder.append('\n').append(entry.getKey()).append(':');
+      for (Diagnostic diagnostic : entry.getValue()) {
+        builder.append('\n').append(diagnostic);
+      }
+    }
+    return builder.toString();
+  }
+}
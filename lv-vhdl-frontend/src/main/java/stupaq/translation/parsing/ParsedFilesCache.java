@@ -0,0 +1,100 @@
+package stupaq.translation.parsing;
+
+import com.google.common.base.Optional;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import stupaq.vhdl93.VHDL93ParserTotal;
+import stupaq.vhdl93.ast.design_file;
+
+/**
+ * On-disk cache of parsed design files. Entries are keyed by a hash of the file content and of the
+ * parser classes, so that a change of the grammar invalidates all previously stored trees. Corrupted
+ * or unreadable entries are treated as misses.
+ */
+public class ParsedFilesCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParsedFilesCache.class);
+  private static final String ENTRY_SUFFIX = ".ast";
+  private static final HashCode GRAMMAR_VERSION = grammarVersion();
+  private final Path directory;
+
+  public ParsedFilesCache(Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+  }
+
+  /** Identifies the grammar and the shape of trees produced by the parser. */
+  public static HashCode grammarVersion() {
+    return classesVersion(VHDL93ParserTotal.class, design_file.class);
+  }
+
+  /** Hashes class files of the given classes, which changes whenever any of them is recompiled. */
+  public static HashCode classesVersion(Class<?>... classes) {
+    Hasher hasher = Hashing.sha1().newHasher();
+    for (Class<?> clazz : classes) {
+      try (InputStream input = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+        if (input != null) {
+          hasher.putBytes(ByteStreams.toByteArray(input));
+        }
+      } catch (IOException e) {
+        LOGGER.warn("Cannot read class file of: {}", clazz.getName());
+      }
+      hasher.putUnencodedChars(clazz.getName());
+    }
+    return hasher.hash();
+  }
+
+  private Path entry(byte[] content) {
+    HashCode key = Hashing.sha1()
+        .newHasher()
+        .putBytes(GRAMMAR_VERSION.asBytes())
+        .putBytes(content)
+        .hash();
+    return directory.resolve(key + ENTRY_SUFFIX);
+  }
+
+  public Optional<design_file> load(byte[] content) {
+    Path file = entry(content);
+    if (!Files.isRegularFile(file)) {
+      return Optional.absent();
+    }
+    try (ObjectInputStream input = new ObjectInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      return Optional.of((design_file) input.readObject());
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      LOGGER.warn("Discarding unreadable cache entry: {}", file, e);
+      return Optional.absent();
+    }
+  }
+
+  public void store(byte[] content, design_file root) {
+    Path file = entry(content);
+    try {
+      Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporary));
+           ObjectOutputStream objects = new ObjectOutputStream(output)) {
+        objects.writeObject(root);
+      }
+      // Readers never observe partially written entries.
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.warn("Cannot store cache entry: {}", file, e);
+    }
+  }
+}
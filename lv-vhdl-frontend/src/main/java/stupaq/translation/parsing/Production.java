@@ -0,0 +1,228 @@
+package stupaq.translation.parsing;
+
+import java.util.BitSet;
+
+import stupaq.vhdl93.ParseException;
+import stupaq.vhdl93.VHDL93ParserTotal;
+import stupaq.vhdl93.ast.*;
+
+import static stupaq.vhdl93.VHDL93ParserConstants.*;
+
+/**
+ * A handle to a single production of {@link VHDL93ParserTotal}, which lets us invoke it directly,
+ * without a reflective lookup on each parse. Handles are defined for productions which are parsed
+ * from snippets in the translation, more can be added as needed.
+ * <p/>
+ * A production can declare the set of token kinds its derivations start with. Snippets starting
+ * with any other token are rejected without running the parser. An empty set means no restriction.
+ */
+public abstract class Production<T extends Node> {
+  public static final Production<identifier> IDENTIFIER =
+      new Production<identifier>("identifier", basic_identifier, extended_identifier) {
+        @Override
+        protected identifier apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.identifier();
+        }
+      };
+
+  public static final Production<label> LABEL =
+      new Production<label>("label", basic_identifier, extended_identifier) {
+        @Override
+        protected label apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.label();
+        }
+      };
+
+  public static final Production<expression> EXPRESSION = new Production<expression>("expression") {
+    @Override
+    protected expression apply(VHDL93ParserTotal parser) throws ParseException {
+      return parser.expression();
+    }
+  };
+
+  public static final Production<name_expression> NAME_EXPRESSION =
+      new Production<name_expression>("name_expression") {
+        @Override
+        protected name_expression apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.name_expression();
+        }
+      };
+
+  public static final Production<literal> LITERAL = new Production<literal>("literal") {
+    @Override
+    protected literal apply(VHDL93ParserTotal parser) throws ParseException {
+      return parser.literal();
+    }
+  };
+
+  public static final Production<subtype_indication> SUBTYPE_INDICATION =
+      new Production<subtype_indication>("subtype_indication") {
+        @Override
+        protected subtype_indication apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.subtype_indication();
+        }
+      };
+
+  public static final Production<context_clause> CONTEXT_CLAUSE =
+      new Production<context_clause>("context_clause") {
+        @Override
+        protected context_clause apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.context_clause();
+        }
+      };
+
+  public static final Production<entity_identifier> ENTITY_IDENTIFIER =
+      new Production<entity_identifier>("entity_identifier", basic_identifier,
+          extended_identifier) {
+        @Override
+        protected entity_identifier apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.entity_identifier();
+        }
+      };
+
+  public static final Production<entity_name> ENTITY_NAME =
+      new Production<entity_name>("entity_name") {
+        @Override
+        protected entity_name apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.entity_name();
+        }
+      };
+
+  public static final Production<entity_declarative_part> ENTITY_DECLARATIVE_PART =
+      new Production<entity_declarative_part>("entity_declarative_part") {
+        @Override
+        protected entity_declarative_part apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.entity_declarative_part();
+        }
+      };
+
+  public static final Production<component_identifier> COMPONENT_IDENTIFIER =
+      new Production<component_identifier>("component_identifier", basic_identifier,
+          extended_identifier) {
+        @Override
+        protected component_identifier apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.component_identifier();
+        }
+      };
+
+  public static final Production<architecture_identifier> ARCHITECTURE_IDENTIFIER =
+      new Production<architecture_identifier>("architecture_identifier", basic_identifier,
+          extended_identifier) {
+        @Override
+        protected architecture_identifier apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.architecture_identifier();
+        }
+      };
+
+  public static final Production<architecture_declarative_part> ARCHITECTURE_DECLARATIVE_PART =
+      new Production<architecture_declarative_part>("architecture_declarative_part") {
+        @Override
+        protected architecture_declarative_part apply(VHDL93ParserTotal parser)
+            throws ParseException {
+          return parser.architecture_declarative_part();
+        }
+      };
+
+  public static final Production<architecture_statement_part> ARCHITECTURE_STATEMENT_PART =
+      new Production<architecture_statement_part>("architecture_statement_part") {
+        @Override
+        protected architecture_statement_part apply(VHDL93ParserTotal parser)
+            throws ParseException {
+          return parser.architecture_statement_part();
+        }
+      };
+
+  public static final Production<concurrent_statement> CONCURRENT_STATEMENT =
+      new Production<concurrent_statement>("concurrent_statement") {
+        @Override
+        protected concurrent_statement apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.concurrent_statement();
+        }
+      };
+
+  public static final Production<instantiated_unit> INSTANTIATED_UNIT =
+      new Production<instantiated_unit>("instantiated_unit") {
+        @Override
+        protected instantiated_unit apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.instantiated_unit();
+        }
+      };
+
+  public static final Production<instantiation_label> INSTANTIATION_LABEL =
+      new Production<instantiation_label>("instantiation_label", basic_identifier,
+          extended_identifier) {
+        @Override
+        protected instantiation_label apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.instantiation_label();
+        }
+      };
+
+  public static final Production<signal_declaration> SIGNAL_DECLARATION =
+      new Production<signal_declaration>("signal_declaration", SIGNAL) {
+        @Override
+        protected signal_declaration apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.signal_declaration();
+        }
+      };
+
+  public static final Production<constant_declaration> CONSTANT_DECLARATION =
+      new Production<constant_declaration>("constant_declaration", CONSTANT) {
+        @Override
+        protected constant_declaration apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.constant_declaration();
+        }
+      };
+
+  public static final Production<interface_declaration> INTERFACE_DECLARATION =
+      new Production<interface_declaration>("interface_declaration") {
+        @Override
+        protected interface_declaration apply(VHDL93ParserTotal parser) throws ParseException {
+          return parser.interface_declaration();
+        }
+      };
+
+  public static final Production<interface_constant_declaration> INTERFACE_CONSTANT_DECLARATION =
+      new Production<interface_constant_declaration>("interface_constant_declaration", CONSTANT,
+          basic_identifier, extended_identifier) {
+        @Override
+        protected interface_constant_declaration apply(VHDL93ParserTotal parser)
+            throws ParseException {
+          return parser.interface_constant_declaration();
+        }
+      };
+
+  public static final Production<interface_signal_declaration> INTERFACE_SIGNAL_DECLARATION =
+      new Production<interface_signal_declaration>("interface_signal_declaration", SIGNAL,
+          basic_identifier, extended_identifier) {
+        @Override
+        protected interface_signal_declaration apply(VHDL93ParserTotal parser)
+            throws ParseException {
+          return parser.interface_signal_declaration();
+        }
+      };
+
+  private final String name;
+  private final BitSet firstTokens = new BitSet();
+
+  protected Production(String name, int... firstTokens) {
+    this.name = name;
+    for (int kind : firstTokens) {
+      this.firstTokens.set(kind);
+    }
+  }
+
+  protected abstract T apply(VHDL93ParserTotal parser) throws ParseException;
+
+  public boolean mayStartWith(int kind) {
+    return firstTokens.isEmpty() || firstTokens.get(kind);
+  }
+
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,160 @@
+package stupaq.translation.parsing;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringReader;
+
+import stupaq.translation.Configuration;
+import stupaq.translation.errors.SyntaxException;
+import stupaq.translation.semantic.FlattenNestedListsVisitor;
+import stupaq.vhdl93.ParseException;
+import stupaq.vhdl93.TokenMgrError;
+import stupaq.vhdl93.VHDL93ParserTotal;
+import stupaq.vhdl93.ast.Node;
+import stupaq.vhdl93.ast.NodeCopier;
+
+/**
+ * Parses snippets of VHDL code with a parser reused by the calling thread. Semantics of parsing are
+ * the same as in {@link VHDL93ParserPartial.Parsers#forString(String)}: the whole snippet must be
+ * consumed by the production and nested lists are flattened.
+ * <p/>
+ * Results of parsing, including failures, are memoized in a bounded cache. Each call returns a fresh
+ * copy of the cached tree, so that callers are free to modify it. When a snippet is expected not to
+ * match a production, use {@link #tryParse(String, Production)} or {@link #classify(String,
+ * Production[])}, which report failures without creating exceptions.
+ */
+public final class SnippetParser {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SnippetParser.class);
+  private static final FlattenNestedListsVisitor FLATTEN_NESTED_LISTS =
+      new FlattenNestedListsVisitor();
+  private static final ThreadLocal<VHDL93ParserTotal> PARSER =
+      new ThreadLocal<VHDL93ParserTotal>() {
+        @Override
+        protected VHDL93ParserTotal initialValue() {
+          return new VHDL93ParserTotal(new StringReader(""));
+        }
+      };
+  private static final LoadingCache<SnippetKey, ParseResult> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(Configuration.getSnippetsCacheSize())
+      .recordStats()
+      .build(new CacheLoader<SnippetKey, ParseResult>() {
+        @Override
+        public ParseResult load(SnippetKey key) {
+          try {
+            return new ParseResult(parseUncached(key.snippet, key.production), null);
+          } catch (ParseException e) {
+            return new ParseResult(null, e);
+          } catch (TokenMgrError e) {
+            return new ParseResult(null, new ParseException(e.getMessage()));
+          }
+        }
+      });
+
+  private SnippetParser() {
+  }
+
+  public static CacheStats cacheStats() {
+    return CACHE.stats();
+  }
+
+  private static ParseResult lookup(String snippet, Production<?> production) {
+    try {
+      return CACHE.getUnchecked(new SnippetKey(snippet, production));
+    } catch (UncheckedExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  public static <T extends Node> T parse(String snippet, Production<T> production) {
+    ParseResult result = lookup(snippet, production);
+    if (result.node == null) {
+      throw new SyntaxException(result.error != null ? result.error : new ParseException(
+          "Snippet: <" + snippet + "> cannot start production: " + production));
+    }
+    // The cast is safe, since the production is a part of the key.
+    @SuppressWarnings("unchecked") T node = (T) result.node;
+    return NodeCopier.copy(node);
+  }
+
+  public static <T extends Node> Optional<T> tryParse(String snippet, Production<T> production) {
+    ParseResult result = lookup(snippet, production);
+    if (result.node == null) {
+      return Optional.absent();
+    }
+    @SuppressWarnings("unchecked") T node = (T) result.node;
+    return Optional.of(NodeCopier.copy(node));
+  }
+
+  /** Returns the first of provided productions which accepts the snippet. */
+  public static Optional<Production<?>> classify(String snippet, Production<?>... productions) {
+    for (Production<?> production : productions) {
+      if (lookup(snippet, production).node != null) {
+        return Optional.<Production<?>>of(production);
+      }
+    }
+    return Optional.absent();
+  }
+
+  /** Returns null if the first token of the snippet cannot start the production. */
+  static <T extends Node> T parseUncached(String snippet, Production<T> production)
+      throws ParseException {
+    LOGGER.trace("Parsing: {} as: {}", snippet, production);
+    VHDL93ParserTotal parser = PARSER.get();
+    parser.ReInit(new StringReader(snippet));
+    if (!production.mayStartWith(parser.getToken(1).kind)) {
+      return null;
+    }
+    T result = production.apply(parser);
+    parser.eof();
+    result.accept(FLATTEN_NESTED_LISTS);
+    return result;
+  }
+
+  private static final class SnippetKey {
+    private final String snippet;
+    private final Production<?> production;
+
+    public SnippetKey(String snippet, Production<?> production) {
+      this.snippet = snippet;
+      this.production = production;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = snippet.hashCode();
+      result = 31 * result + production.hashCode();
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SnippetKey that = (SnippetKey) o;
+      return production == that.production && snippet.equals(that.snippet);
+    }
+  }
+
+  private static final class ParseResult {
+    private final Node node;
+    private final ParseException error;
+
+    public ParseResult(Node node, ParseException error) {
+      this.node = node;
+      this.error = error;
+    }
+  }
+}
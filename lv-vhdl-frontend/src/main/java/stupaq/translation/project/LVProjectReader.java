@@ -25,20 +25,28 @@ public class LVProjectReader implements Iterator<VIPath> {
   private final List<VIPath> todo = Lists.newArrayList();
 
   public LVProjectReader(Iterable<VIPath> roots) {
+    this(defaultTools(), roots);
+  }
+
+  public LVProjectReader(ScriptingTools tools, Iterable<VIPath> roots) {
+    this.tools = tools;
+    Iterables.addAll(todo, roots);
+  }
+
+  private static ScriptingTools defaultTools() {
     if (StandardSystemProperty.OS_NAME.value().toLowerCase().contains("windows")) {
-      tools = new ActiveXScriptingTools();
+      return new ActiveXScriptingTools();
     } else {
-      tools = new FakeScriptingTools();
+      return new FakeScriptingTools();
     }
-    Iterables.addAll(todo, roots);
   }
 
   public ScriptingTools tools() {
     return tools;
   }
 
-  public void addDependency(VIPath path) {
-    if (!done.contains(path)) {
+  public synchronized void addDependency(VIPath path) {
+    if (!done.contains(path) && !todo.contains(path)) {
       todo.add(path);
     }
   }
@@ -0,0 +1,57 @@
+package stupaq.translation.project;
+
+import com.google.common.hash.HashCode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Records a fingerprint of the sources each project element was generated from, so that elements
+ * which did not change since the previous translation can be skipped.
+ */
+public class ProjectManifest {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProjectManifest.class);
+  private static final String MANIFEST_FILE = ".manifest";
+  private final Path file;
+  private final Properties fingerprints = new Properties();
+
+  public ProjectManifest(Path root) throws IOException {
+    file = root.resolve(MANIFEST_FILE);
+    if (Files.isRegularFile(file)) {
+      try (InputStream input = Files.newInputStream(file)) {
+        fingerprints.load(input);
+      }
+    }
+  }
+
+  public boolean isUpToDate(ProjectElementName name, HashCode fingerprint) {
+    return fingerprint.toString().equals(fingerprints.getProperty(name.elementName()));
+  }
+
+  public void update(ProjectElementName name, HashCode fingerprint) {
+    fingerprints.setProperty(name.elementName(), fingerprint.toString());
+  }
+
+  public void invalidate(ProjectElementName name) {
+    fingerprints.remove(name.elementName());
+  }
+
+  public void save() throws IOException {
+    Files.createDirectories(file.getParent());
+    Path temporary = Files.createTempFile(file.getParent(), MANIFEST_FILE, ".tmp");
+    try (OutputStream output = Files.newOutputStream(temporary)) {
+      fingerprints.store(output, null);
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    LOGGER.debug("Saved manifest of: {} elements", fingerprints.size());
+  }
+}
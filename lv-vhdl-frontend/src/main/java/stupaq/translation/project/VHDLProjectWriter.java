@@ -2,50 +2,59 @@ package stupaq.translation.project;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 import stupaq.translation.naming.ArchitectureName;
 import stupaq.translation.naming.EntityName;
 import stupaq.vhdl93.ast.design_unit;
-import stupaq.vhdl93.formatting.VHDLTreeFormatter;
-import stupaq.vhdl93.visitor.TreeDumper;
+import stupaq.vhdl93.formatting.VHDLTreePrinter;
 
-public class VHDLProjectWriter {
+/**
+ * Collects design units of all entities and writes each file once, when closed. Units can be
+ * written concurrently and in any order, each file starts with the entity followed by its
+ * architectures in order in which they were written.
+ */
+public class VHDLProjectWriter implements Closeable {
   private static final Logger LOGGER = LoggerFactory.getLogger(VHDLProjectWriter.class);
   private static final CharMatcher FILE_REPLACE_CHARS = CharMatcher.anyOf(".(");
   private static final CharMatcher FILE_REMOVE_CHARS = CharMatcher.anyOf(")/\\");
   private static final CharSequence FILE_REPLACEMENT = "-";
   private static final String FILE_EXTENSION = ".vhd";
+  private static final int LOCK_STRIPES = 64;
+  private static final String LINE_SEPARATOR = System.lineSeparator();
   private final Path root;
-  private final Map<EntityName, File> entities = Maps.newHashMap();
-  private final Set<ArchitectureName> architectures = Sets.newHashSet();
+  private final ConcurrentMap<EntityName, EntityFile> entities = Maps.newConcurrentMap();
+  private final Set<ArchitectureName> architectures = Sets.newConcurrentHashSet();
+  private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+  private volatile boolean closed = false;
 
   public VHDLProjectWriter(Path root) throws IOException {
     Files.createDirectories(root);
     this.root = root;
   }
 
-  private static void writeVHDL(File file, design_unit unit, boolean append) throws IOException {
-    try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file, append)))) {
-      unit.accept(new VHDLTreeFormatter());
-      unit.accept(new TreeDumper(writer));
-      writer.println();
-      writer.println();
-    }
+  private static String renderVHDL(design_unit unit) {
+    StringBuilder buffer = new StringBuilder();
+    unit.accept(new VHDLTreePrinter(buffer));
+    return buffer.append(LINE_SEPARATOR).append(LINE_SEPARATOR).toString();
   }
 
   private Path resolvePath(EntityName name) {
@@ -58,24 +67,86 @@ public class VHDLProjectWriter {
     return root.resolve(filename + FILE_EXTENSION);
   }
 
-  public void writeEntity(EntityName name, design_unit unit) throws IOException {
-    if (entities.containsKey(name)) {
+  private EntityFile entityFile(EntityName name) {
+    EntityFile file = entities.get(name);
+    if (file == null) {
+      file = new EntityFile();
+      EntityFile existing = entities.putIfAbsent(name, file);
+      if (existing != null) {
+        file = existing;
+      }
+    }
+    return file;
+  }
+
+  public void writeEntity(EntityName name, design_unit unit) {
+    Preconditions.checkState(!closed, "Writer is closed.");
+    // Rendering does not modify the unit, so it does not need to hold the lock.
+    String text = renderVHDL(unit);
+    EntityFile file = entityFile(name);
+    Lock lock = locks.get(name);
+    lock.lock();
+    try {
+      if (file.entity != null) {
+        LOGGER.warn("Multiple entity: {} declarations, skipping all but first one.", name);
+        return;
+      }
+      file.entity = text;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void writeArchitecture(ArchitectureName name, design_unit unit) {
+    Preconditions.checkState(!closed, "Writer is closed.");
+    if (!architectures.add(name)) {
       LOGGER.warn("Multiple entity: {} declarations, skipping all but first one.", name);
       return;
     }
-    File file = resolvePath(name).toFile();
-    writeVHDL(file, unit, false);
-    entities.put(name, file);
+    String text = renderVHDL(unit);
+    EntityFile file = entityFile(name.entity());
+    Lock lock = locks.get(name.entity());
+    lock.lock();
+    try {
+      file.architectures.add(text);
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public void writeArchitecture(ArchitectureName name, design_unit unit) throws IOException {
-    if (architectures.contains(name)) {
-      LOGGER.warn("Multiple entity: {} declarations, skipping all but first one.", name);
+  @Override
+  public void close() throws IOException {
+    if (closed) {
       return;
     }
-    architectures.add(name);
-    File file = entities.get(name.entity());
-    Preconditions.checkState(file != null, "Missing file for entity: {}.", name.entity());
-    writeVHDL(file, unit, true);
+    closed = true;
+    List<EntityName> missing = Lists.newArrayList();
+    for (Map.Entry<EntityName, EntityFile> entry : entities.entrySet()) {
+      EntityName name = entry.getKey();
+      EntityFile file = entry.getValue();
+      Lock lock = locks.get(name);
+      lock.lock();
+      try {
+        if (file.entity == null) {
+          missing.add(name);
+          continue;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(resolvePath(name),
+            Charset.defaultCharset())) {
+          writer.write(file.entity);
+          for (String architecture : file.architectures) {
+            writer.write(architecture);
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    Preconditions.checkState(missing.isEmpty(), "Missing file for entities: %s.", missing);
+  }
+
+  private static class EntityFile {
+    private final List<String> architectures = Lists.newArrayList();
+    private String entity;
   }
 }
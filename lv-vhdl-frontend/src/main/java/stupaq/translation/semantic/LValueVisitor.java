@@ -27,7 +27,7 @@ public abstract class LValueVisitor extends DepthFirstVisitor {
     n.accept(new DepthFirstVisitor() {
       @Override
       public void visit(identifier n) {
-        topLevel(new IOReference(n));
+        topLevel(IOReference.of(n));
       }
 
       @Override
@@ -48,6 +48,6 @@ public abstract class LValueVisitor extends DepthFirstVisitor {
 
   @Override
   public void visit(identifier n) {
-    topLevel(new IOReference(n));
+    topLevel(IOReference.of(n));
   }
 }
@@ -14,7 +14,7 @@ public abstract class RValueVisitor extends DepthFirstVisitor {
 
   @Override
   public void visit(identifier n) {
-    topLevelScope(new IOReference(n));
+    topLevelScope(IOReference.of(n));
   }
 
   @Override
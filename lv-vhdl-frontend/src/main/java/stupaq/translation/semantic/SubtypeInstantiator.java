@@ -5,15 +5,18 @@ import com.google.common.base.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import stupaq.translation.errors.SyntaxException;
 import stupaq.translation.naming.IOReference;
 import stupaq.translation.parsing.NodeRepr;
+import stupaq.translation.parsing.Production;
 import stupaq.vhdl93.ast.identifier;
 import stupaq.vhdl93.ast.primary;
 import stupaq.vhdl93.ast.subtype_indication;
 import stupaq.vhdl93.visitor.DepthFirstVisitor;
 
 import static stupaq.translation.parsing.NodeRepr.duplicate;
+import static stupaq.translation.parsing.Production.EXPRESSION;
+import static stupaq.translation.parsing.Production.LITERAL;
+import static stupaq.translation.parsing.Production.NAME_EXPRESSION;
 import static stupaq.vhdl93.VHDL93ParserConstants.LPAREN;
 import static stupaq.vhdl93.VHDL93ParserConstants.RPAREN;
 import static stupaq.vhdl93.ast.Builders.choice;
@@ -52,21 +55,16 @@ public class SubtypeInstantiator {
     public void visit(primary n) {
       Optional<identifier> formal = ExpressionClassifier.asIdentifier(n);
       if (formal.isPresent()) {
-        IOReference ref = new IOReference(formal.get());
+        IOReference ref = IOReference.of(formal.get());
         NodeRepr val = context.get(ref);
         if (val != null) {
           LOGGER.debug("Replacing: {} with: {}", ref, val);
-          try {
-            n.nodeChoice = choice(val.as().name_expression());
-            return;
-          } catch (SyntaxException ignored) {
+          Optional<Production<?>> simple = val.classify(NAME_EXPRESSION, LITERAL);
+          if (simple.isPresent()) {
+            n.nodeChoice = choice(val.as(simple.get()));
+          } else {
+            n.nodeChoice = choice(sequence(token(LPAREN), val.as(EXPRESSION), token(RPAREN)));
           }
-          try {
-            n.nodeChoice = choice(val.as().literal());
-            return;
-          } catch (SyntaxException ignored) {
-          }
-          n.nodeChoice = choice(sequence(token(LPAREN), val.as().expression(), token(RPAREN)));
           return;
         }
       }
@@ -41,7 +41,7 @@ abstract class AssociationListVisitor<T> extends NonTerminalsNoOpVisitor<T> {
   @Override
   public final void visit(named_association_element n) {
     Preconditions.checkState(elementIndex == Integer.MIN_VALUE);
-    name = new IOReference(n.formal_part.identifier);
+    name = IOReference.of(n.formal_part.identifier);
     n.actual_part.accept(this);
     name = null;
   }
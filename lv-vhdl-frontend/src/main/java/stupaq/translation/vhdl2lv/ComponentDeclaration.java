@@ -6,8 +6,15 @@ import stupaq.translation.naming.Identifier;
 import stupaq.vhdl93.ast.component_declaration;
 
 class ComponentDeclaration extends InterfaceDeclaration {
+  private final component_declaration node;
+
   public ComponentDeclaration(ArchitectureName arch, component_declaration node) {
     super(Identifier.component(arch, node), node.component_header);
+    this.node = node;
+  }
+
+  public component_declaration node() {
+    return node;
   }
 
   @Override
@@ -1,10 +1,12 @@
 package stupaq.translation.vhdl2lv;
 
 import com.google.common.base.Optional;
+import com.google.common.hash.HashCode;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
 import java.util.Map.Entry;
 
 import stupaq.labview.hierarchy.FormulaNode;
@@ -14,7 +16,10 @@ import stupaq.translation.TranslationConventions;
 import stupaq.translation.naming.ArchitectureName;
 import stupaq.translation.naming.IOReference;
 import stupaq.translation.naming.Identifier;
+import stupaq.translation.naming.InstantiableName;
 import stupaq.translation.project.LVProject;
+import stupaq.translation.project.ProjectElementName;
+import stupaq.translation.project.ProjectManifest;
 import stupaq.translation.semantic.FlattenNestedListsVisitor;
 import stupaq.translation.vhdl2lv.IOSinks.Sink;
 import stupaq.translation.vhdl2lv.IOSources.Source;
@@ -23,6 +28,7 @@ import stupaq.vhdl93.ast.Node;
 import stupaq.vhdl93.ast.architecture_declaration;
 import stupaq.vhdl93.ast.block_declarative_item;
 import stupaq.vhdl93.ast.component_declaration;
+import stupaq.vhdl93.ast.component_instantiation_statement;
 import stupaq.vhdl93.ast.constant_declaration;
 import stupaq.vhdl93.ast.context_clause;
 import stupaq.vhdl93.ast.design_file;
@@ -44,6 +50,8 @@ class DesignFileEmitter extends DepthFirstVisitor {
   private final ComponentBindingResolver resolver = new ComponentBindingResolver();
   /** Context of {@link #visit(design_file)}. */
   private final LVProject project;
+  /** Context of {@link #visit(design_file)}. */
+  private final Optional<ProjectManifest> manifest;
   /** Context of {@link #visit(design_unit)}. */
   private context_clause lastContext;
   /** Context of {@link #visit(architecture_declaration)}. */
@@ -54,7 +62,56 @@ class DesignFileEmitter extends DepthFirstVisitor {
   private IOSinks danglingSinks;
 
   public DesignFileEmitter(LVProject project) {
+    this(project, Optional.<ProjectManifest>absent());
+  }
+
+  public DesignFileEmitter(LVProject project, Optional<ProjectManifest> manifest) {
     this.project = project;
+    this.manifest = manifest;
+  }
+
+  /** Fingerprints are computed in incremental mode only, otherwise they are absent. */
+  private boolean isUpToDate(ProjectElementName name, Optional<HashCode> fingerprint) {
+    return fingerprint.isPresent() && manifest.get().isUpToDate(name, fingerprint.get()) &&
+        Files.exists(project.resolve(name).path());
+  }
+
+  private void markUpToDate(ProjectElementName name, Optional<HashCode> fingerprint) {
+    if (fingerprint.isPresent()) {
+      manifest.get().update(name, fingerprint.get());
+    }
+  }
+
+  private Optional<HashCode> fingerprint(ComponentDeclaration component) {
+    if (!manifest.isPresent()) {
+      return Optional.absent();
+    }
+    return Optional.of(new SourceFingerprint().add(component.node()).hash());
+  }
+
+  private Optional<HashCode> fingerprint(final ArchitectureName arch, EntityDeclaration entity,
+      architecture_declaration n) {
+    if (!manifest.isPresent()) {
+      return Optional.absent();
+    }
+    final SourceFingerprint fingerprint = new SourceFingerprint().add(entity.node())
+        .add(entity.context())
+        .add(lastContext)
+        .add(n);
+    // The VI depends on interfaces of all instantiated entities and bound architectures.
+    n.architecture_statement_part.accept(new DepthFirstVisitor() {
+      @Override
+      public void visit(component_instantiation_statement n) {
+        InstantiableName instance =
+            Identifier.instantiation(resolver.architectures(), arch, n.instantiated_unit);
+        fingerprint.add(instance.elementName());
+        InterfaceDeclaration iface = resolver.get(instance.interfaceName());
+        if (iface instanceof EntityDeclaration) {
+          fingerprint.add(((EntityDeclaration) iface).node());
+        }
+      }
+    });
+    return Optional.of(fingerprint.hash());
   }
 
   @Override
@@ -82,18 +139,30 @@ class DesignFileEmitter extends DepthFirstVisitor {
     final ArchitectureName arch = Identifier.architecture(entity.name(), n);
     resolver.architectures().add(arch);
     LOGGER.debug("Architecture: {}", arch);
-    // Create all generics, ports and eventually the VI itself.
-    UniversalVI universalVi = new UniversalVI(project, arch, entity, namedSources, danglingSinks);
-    currentVi = universalVi.createdVI();
     // Fill local scope with component declarations.
     resolver.enterLocal(arch, n.architecture_declarative_part);
     // Emit all locally declared components.
     for (ComponentDeclaration component : resolver.getLocalComponents()) {
+      Optional<HashCode> componentFingerprint = fingerprint(component);
+      if (isUpToDate(component.name(), componentFingerprint)) {
+        LOGGER.info("Component: {} is up to date.", component.name());
+        continue;
+      }
       // Create all generics, ports and eventually the VI itself.
       // Note that we create separate dangling sinks and sources, since this will be a whole
       // different VI.
       new UniversalVI(project, component.name(), component, new IOSources(), new IOSinks());
+      markUpToDate(component.name(), componentFingerprint);
+    }
+    Optional<HashCode> archFingerprint = fingerprint(arch, entity, n);
+    if (isUpToDate(arch, archFingerprint)) {
+      LOGGER.info("Architecture: {} is up to date.", arch);
+      resolver.exitLocal();
+      return;
     }
+    // Create all generics, ports and eventually the VI itself.
+    UniversalVI universalVi = new UniversalVI(project, arch, entity, namedSources, danglingSinks);
+    currentVi = universalVi.createdVI();
     // Emit architecture body.
     ConcurrentStatementsEmitter concurrentStatements =
         new ConcurrentStatementsEmitter(resolver, project, arch, currentVi, namedSources,
@@ -123,7 +192,7 @@ class DesignFileEmitter extends DepthFirstVisitor {
       @Override
       public void visit(constant_declaration n) {
         declarativePartFallback = false;
-        final IOReference ref = new IOReference(n.identifier_list.identifier);
+        final IOReference ref = IOReference.of(n.identifier_list.identifier);
         final String label = sequence(n.nodeToken, n.identifier_list, n.nodeToken1,
             n.subtype_indication).representation();
         Terminal terminal = (new NonTerminalsNoOpVisitor<Terminal>() {
@@ -157,7 +226,7 @@ class DesignFileEmitter extends DepthFirstVisitor {
       public void visit(signal_declaration n) {
         if (!n.nodeOptional.present() && !n.nodeOptional1.present()) {
           // Signals of special kind or with assigned value are not inferrable.
-          IOReference ref = new IOReference(n.identifier_list.identifier);
+          IOReference ref = IOReference.of(n.identifier_list.identifier);
           if (inferrableDeclarations.contains(ref)) {
             // We skip this declaration.
             declarativePartFallback = false;
@@ -216,6 +285,7 @@ class DesignFileEmitter extends DepthFirstVisitor {
       LOGGER.error("Dangling sink: {}", entry.getKey());
     }
     currentVi.cleanUpDiagram();
+    markUpToDate(arch, archFingerprint);
     currentVi = null;
     namedSources = null;
     danglingSinks = null;
@@ -166,7 +166,7 @@ class InferrableDeclarations extends NonTerminalsNoOpVisitor<Void> {
           ExpressionClassifier.asIdentifier(n).transform(new Function<identifier, IOReference>() {
             @Override
             public IOReference apply(identifier identifier) {
-              return new IOReference(identifier);
+              return IOReference.of(identifier);
             }
           });
       if (ref.isPresent()) {
@@ -166,17 +166,17 @@ class ProcessSignalsEmitter extends NonTerminalsNoOpVisitor<Void> {
 
       @Override
       public void visit(constant_declaration n) {
-        exclude(new IOReference(n.identifier_list.identifier));
+        exclude(IOReference.of(n.identifier_list.identifier));
       }
 
       @Override
       public void visit(signal_declaration n) {
-        exclude(new IOReference(n.identifier_list.identifier));
+        exclude(IOReference.of(n.identifier_list.identifier));
       }
 
       @Override
       public void visit(variable_declaration n) {
-        exclude(new IOReference(n.identifier_list.identifier));
+        exclude(IOReference.of(n.identifier_list.identifier));
       }
     });
     // Emit all latched signals.
@@ -0,0 +1,36 @@
+package stupaq.translation.vhdl2lv;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import stupaq.vhdl93.ast.Node;
+import stupaq.vhdl93.ast.NodeToken;
+import stupaq.vhdl93.visitor.DepthFirstVisitor;
+
+/** Hashes tokens of the source a project element is generated from, comments are ignored. */
+class SourceFingerprint extends DepthFirstVisitor {
+  private final Hasher hasher = Hashing.sha1().newHasher();
+
+  public SourceFingerprint add(Node n) {
+    if (n != null) {
+      n.accept(this);
+    }
+    hasher.putChar('\n');
+    return this;
+  }
+
+  public SourceFingerprint add(String string) {
+    hasher.putUnencodedChars(string).putChar('\n');
+    return this;
+  }
+
+  public HashCode hash() {
+    return hasher.hash();
+  }
+
+  @Override
+  public void visit(NodeToken n) {
+    hasher.putUnencodedChars(n.tokenImage).putChar(' ');
+  }
+}
@@ -10,7 +10,7 @@ abstract class TypedReferenceDeclaration {
   private final TypeIndication type;
 
   public TypedReferenceDeclaration(identifier id, subtype_indication subtype) {
-    reference = new IOReference(id);
+    reference = IOReference.of(id);
     type = new TypeIndication(subtype);
   }
 
@@ -0,0 +1,74 @@
+package stupaq.vhdl93;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A character stream which holds the whole decoded input in its buffer. Input is decoded once, the
+ * buffer never wraps around nor expands and token images are copied straight from it. Nothing
+ * needs to be closed once the stream is created.
+ */
+public class CharBufferCharStream extends SimpleCharStream {
+  private static final Reader EXHAUSTED = new Reader() {
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+      return -1;
+    }
+
+    @Override
+    public void close() {
+    }
+  };
+
+  private CharBufferCharStream(char[] chars, int length) {
+    super(EXHAUSTED, 1, 1, 1);
+    buffer = chars;
+    // The array has at least one spare slot, reading past the end hits the exhausted reader
+    // instead of expanding the buffer.
+    bufsize = available = chars.length;
+    maxNextCharInd = length;
+    bufline = new int[chars.length];
+    bufcolumn = new int[chars.length];
+  }
+
+  public static CharBufferCharStream of(CharBuffer chars) {
+    int length = chars.remaining();
+    char[] array;
+    if (chars.hasArray() && chars.arrayOffset() + chars.position() == 0 &&
+        chars.array().length > length) {
+      array = chars.array();
+    } else {
+      array = new char[length + 1];
+      chars.duplicate().get(array, 0, length);
+    }
+    return new CharBufferCharStream(array, length);
+  }
+
+  public static CharBufferCharStream of(CharSequence chars) {
+    return of(CharBuffer.wrap(chars));
+  }
+
+  /** Decodes the content with platform default charset, the same as the generated parser. */
+  public static CharBufferCharStream decode(byte[] content) {
+    return of(Charset.defaultCharset().decode(ByteBuffer.wrap(content)));
+  }
+
+  /** Maps the file into memory and decodes it, the file is closed before this method returns. */
+  public static CharBufferCharStream decode(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return of(Charset.defaultCharset().decode(channel.map(MapMode.READ_ONLY, 0, channel.size())));
+    }
+  }
+
+  /** Creates a parser which reads from this stream. */
+  public VHDL93ParserTotal parser() {
+    return new VHDL93ParserTotal(new VHDL93ParserTotalTokenManager(this));
+  }
+}
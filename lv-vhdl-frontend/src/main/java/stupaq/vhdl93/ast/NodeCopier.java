@@ -0,0 +1,140 @@
+package stupaq.vhdl93.ast;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * Creates structural deep copies of AST nodes. Copies share no mutable state with the original, so
+ * that either of them can be reformatted or rewritten independently.
+ */
+public final class NodeCopier {
+  private static final LoadingCache<Class<?>, CopyPlan> PLANS =
+      CacheBuilder.newBuilder().build(new CacheLoader<Class<?>, CopyPlan>() {
+        @Override
+        public CopyPlan load(Class<?> clazz) {
+          return new CopyPlan(clazz);
+        }
+      });
+
+  private NodeCopier() {
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T extends Node> T copy(T node) {
+    if (node == null) {
+      return null;
+    } else if (node instanceof NodeToken) {
+      return (T) copyToken((NodeToken) node);
+    } else {
+      return (T) PLANS.getUnchecked(node.getClass()).copy(node);
+    }
+  }
+
+  private static NodeToken copyToken(NodeToken n) {
+    NodeToken copy =
+        new NodeToken(n.tokenImage, n.kind, n.beginLine, n.beginColumn, n.endLine, n.endColumn);
+    if (n.specialTokens != null) {
+      for (NodeToken special : n.specialTokens) {
+        copy.addSpecial(copyToken(special));
+      }
+    }
+    return copy;
+  }
+
+  private static Object copyValue(Object value) {
+    if (value instanceof Node) {
+      return copy((Node) value);
+    } else if (value instanceof Vector) {
+      Vector<?> vector = (Vector<?>) value;
+      Vector<Object> copy = new Vector<>(vector.size());
+      for (Object element : vector) {
+        copy.add(copyValue(element));
+      }
+      return copy;
+    } else {
+      // Strings and primitives are immutable.
+      return value;
+    }
+  }
+
+  /**
+   * Generated nodes have a constructor which only assigns children to public fields. We call it
+   * with default arguments and then overwrite all public fields with copies.
+   */
+  private static final class CopyPlan {
+    private final Constructor<?> constructor;
+    private final Object[] arguments;
+    private final List<Field> fields = Lists.newArrayList();
+
+    public CopyPlan(Class<?> clazz) {
+      Constructor<?> widest = null;
+      for (Constructor<?> candidate : clazz.getConstructors()) {
+        if (widest == null ||
+            candidate.getParameterTypes().length > widest.getParameterTypes().length) {
+          widest = candidate;
+        }
+      }
+      if (widest == null) {
+        throw new IllegalArgumentException("No public constructor in: " + clazz.getName());
+      }
+      constructor = widest;
+      Class<?>[] types = widest.getParameterTypes();
+      arguments = new Object[types.length];
+      for (int i = 0; i < types.length; ++i) {
+        arguments[i] = defaultValue(types[i]);
+      }
+      for (Field field : clazz.getFields()) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+          fields.add(field);
+        }
+      }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+      if (!type.isPrimitive()) {
+        return null;
+      } else if (type == boolean.class) {
+        return false;
+      } else if (type == char.class) {
+        return '\0';
+      } else if (type == long.class) {
+        return 0L;
+      } else if (type == float.class) {
+        return 0f;
+      } else if (type == double.class) {
+        return 0d;
+      } else if (type == byte.class) {
+        return (byte) 0;
+      } else if (type == short.class) {
+        return (short) 0;
+      } else {
+        return 0;
+      }
+    }
+
+    public Object copy(Object node) {
+      try {
+        Object copy = constructor.newInstance(arguments);
+        for (Field field : fields) {
+          field.set(copy, copyValue(field.get(node)));
+        }
+        return copy;
+      } catch (InstantiationException | IllegalAccessException e) {
+        throw new IllegalStateException("Cannot copy node of: " + node.getClass().getName(), e);
+      } catch (InvocationTargetException e) {
+        throw Throwables.propagate(e.getTargetException());
+      }
+    }
+  }
+}
@@ -2,26 +2,32 @@ package stupaq.vhdl93.ast;
 
 import com.google.common.collect.Maps;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Vector;
 
 import stupaq.vhdl93.VHDL93ParserConstants;
 import stupaq.vhdl93.VHDL93ParserTotal;
 
 /**
- * Represents a single token in the grammar.  If the "-tk" option is used, also contains a Vector of
- * preceding special tokens.
+ * Represents a single token in the grammar.  If the "-tk" option is used, also contains a list of
+ * preceding special tokens. Images of keywords and delimiters are shared by all tokens of a kind.
  */
 public class NodeToken extends SimpleNode implements Node {
   public NodeToken(String s) {
-    this(s, TokenKindCache.resolveKind(s), -1, -1, -1, -1);
+    this(s, TokenImages.resolveKind(s), -1, -1, -1, -1);
+  }
+
+  /** Creates a token of the given kind without position, with the image shared by the kind. */
+  public NodeToken(int kind) {
+    this(TokenImages.image(kind), kind, -1, -1, -1, -1);
   }
 
   public NodeToken(String s, int kind, int beginLine, int beginColumn, int endLine, int endColumn) {
-    tokenImage = s;
+    tokenImage = TokenImages.canonical(s, kind);
     specialTokens = null;
     this.kind = kind;
     this.beginLine = beginLine;
@@ -34,7 +40,7 @@ public class NodeToken extends SimpleNode implements Node {
     if (specialTokens == null) {
       throw new NoSuchElementException("No specials in token");
     }
-    return specialTokens.elementAt(i);
+    return specialTokens.get(i);
   }
 
   public int numSpecials() {
@@ -46,9 +52,9 @@ public class NodeToken extends SimpleNode implements Node {
 
   public void addSpecial(NodeToken s) {
     if (specialTokens == null) {
-      specialTokens = new Vector<>();
+      specialTokens = new Specials();
     }
-    specialTokens.addElement(s);
+    specialTokens.add(s);
   }
 
   public void trimSpecials() {
@@ -69,8 +75,8 @@ public class NodeToken extends SimpleNode implements Node {
 
     StringBuilder buf = new StringBuilder();
 
-    for (Enumeration<NodeToken> e = specialTokens.elements(); e.hasMoreElements(); ) {
-      buf.append(e.nextElement().toString());
+    for (NodeToken special : specialTokens) {
+      buf.append(special.toString());
     }
 
     buf.append(tokenImage);
@@ -95,8 +101,8 @@ public class NodeToken extends SimpleNode implements Node {
 
   public String tokenImage;
 
-  // Stores a list of NodeTokens
-  public Vector<NodeToken> specialTokens;
+  // Stores a list of NodeTokens, created with the first one
+  public Specials specialTokens;
 
   // -1 for these ints means no position info is available.
   public int beginLine, beginColumn, endLine, endColumn;
@@ -105,28 +111,65 @@ public class NodeToken extends SimpleNode implements Node {
   // -1 if not available.
   public int kind;
 
-  private static final class TokenKindCache {
-    private TokenKindCache() {
+  /** A list of special tokens, which the generated visitors can enumerate as if it was a vector. */
+  public static final class Specials extends ArrayList<NodeToken> {
+    private static final long serialVersionUID = 1L;
+
+    private Specials() {
+      super(1);
+    }
+
+    public Enumeration<NodeToken> elements() {
+      return Collections.enumeration(this);
     }
+  }
 
-    private static Map<String, Integer> cache;
+  private static final class TokenImages {
+    private static final String[] LOWER_CASE = new String[VHDL93ParserConstants.tokenImage.length];
+    private static final String[] UPPER_CASE = new String[VHDL93ParserConstants.tokenImage.length];
+    private static final Map<String, Integer> KINDS;
 
     static {
-      Map<String, Integer> cache = Maps.newHashMap();
+      Map<String, Integer> kinds = Maps.newHashMap();
       for (int kind = 0; kind < VHDL93ParserConstants.tokenImage.length; ++kind) {
         String image = VHDL93ParserConstants.tokenImage[kind];
         if (image.startsWith("\"") && image.endsWith("\"") && !image.contains("\\")) {
-          image = VHDL93ParserTotal.tokenString(kind).toLowerCase();
-          cache.put(image, kind);
+          image = VHDL93ParserTotal.tokenString(kind).toLowerCase(Locale.ROOT);
+          LOWER_CASE[kind] = image;
+          UPPER_CASE[kind] = image.toUpperCase(Locale.ROOT);
+          kinds.put(image, kind);
         }
       }
-      TokenKindCache.cache = Collections.unmodifiableMap(cache);
+      KINDS = Collections.unmodifiableMap(kinds);
+    }
+
+    private TokenImages() {
+    }
+
+    public static String image(int kind) {
+      String image = LOWER_CASE[kind];
+      return image == null ? VHDL93ParserTotal.tokenString(kind) : image;
+    }
+
+    /** Returns the shared image of the kind if it is equal to the given one. */
+    public static String canonical(String image, int kind) {
+      if (kind < 0 || kind >= LOWER_CASE.length || LOWER_CASE[kind] == null) {
+        return image;
+      } else if (LOWER_CASE[kind].equals(image)) {
+        return LOWER_CASE[kind];
+      } else if (UPPER_CASE[kind].equals(image)) {
+        return UPPER_CASE[kind];
+      }
+      return image;
     }
 
     public static int resolveKind(String tokenImage) {
-      Integer kind = cache.get(tokenImage.trim().toLowerCase());
+      // Images of generated tokens are exactly as in the grammar, no need to normalise them.
+      Integer kind = KINDS.get(tokenImage);
+      if (kind == null) {
+        kind = KINDS.get(tokenImage.trim().toLowerCase());
+      }
       return kind == null ? -1 : kind;
     }
   }
 }
-
@@ -10,6 +10,7 @@ import static stupaq.translation.parsing.NodeRepr.repr;
 public abstract class SimpleNode implements Node {
 
   // FIXME remove this along with dependency on NodeRepr
+  /** Renders the node without modifying the tree, can be called concurrently on shared trees. */
   public String representation() {
     return repr(this).toString();
   }
@@ -0,0 +1,37 @@
+package stupaq.vhdl93.errors;
+
+import stupaq.vhdl93.Token;
+
+/** A syntax error reported at a position in a design file. */
+public final class Diagnostic {
+  private final int line;
+  private final int column;
+  private final String message;
+
+  public Diagnostic(int line, int column, String message) {
+    this.line = line;
+    this.column = column;
+    this.message = message;
+  }
+
+  public Diagnostic(Token token, String message) {
+    this(token.beginLine, token.beginColumn, message);
+  }
+
+  public int line() {
+    return line;
+  }
+
+  public int column() {
+    return column;
+  }
+
+  public String message() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return "line\t" + line + ":\t" + message;
+  }
+}
@@ -1,18 +1,31 @@
 package stupaq.vhdl93.errors;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
 import stupaq.vhdl93.Token;
 
+/** Collects all reported errors, so that the parser can carry on after the first one. */
 public class ErrorSummary implements ErrorHandler {
-  public int Errors = 0;
+  private final List<Diagnostic> diagnostics = Lists.newArrayList();
 
   @Override
   public void error(Token token, String message) {
-    System.err.println("line\t" + token.beginLine + ":\t" + message);
-    Errors++;
+    diagnostics.add(new Diagnostic(token, message));
+  }
+
+  public int errors() {
+    return diagnostics.size();
+  }
+
+  public List<Diagnostic> diagnostics() {
+    return ImmutableList.copyOf(diagnostics);
   }
 
   @Override
   public String summary() {
-    return "Syntax errors: " + Errors;
+    return "Syntax errors: " + diagnostics.size();
   }
 }
@@ -2,7 +2,7 @@ package stupaq.vhdl93.formatting;
 
 import stupaq.vhdl93.ast.NodeToken;
 import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.Action;
-import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.TokenPairMatcher;
+import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.TokenKindsMatcher;
 import stupaq.vhdl93.visitor.FormatCommand;
 
 public class LineBreakingTreeFormatter extends TokenSeparatingTreeFormatter {
@@ -12,10 +12,9 @@ public class LineBreakingTreeFormatter extends TokenSeparatingTreeFormatter {
   public LineBreakingTreeFormatter(int indentAmt, int wrapWidth) {
     super(indentAmt, wrapWidth);
     // Ensure that we have a line break after a semicolon unless there is a following comment.
-    preExecutor.put(new TokenPairMatcher() {
+    preExecutor.put(new TokenKindsMatcher() {
       @Override
-      public boolean matches(NodeToken left, NodeToken right) {
-        int l = left.kind, r = right.kind;
+      public boolean matches(int l, int r) {
         return (l == SEMICOLON && r != COMMENT);
       }
     }, new Action() {
@@ -25,81 +24,75 @@ public class LineBreakingTreeFormatter extends TokenSeparatingTreeFormatter {
       }
     });
     // Insert line break before primary or secondary unit.
-    preExecutor.put(new TokenPairMatcher() {
+    preExecutor.put(new TokenKindsMatcher() {
       @Override
-      public boolean matches(NodeToken left, NodeToken right) {
-        int l = left.kind, r = right.kind;
+      public boolean matches(int l, int r) {
         return (l != END) && (r == ARCHITECTURE) || (r == ENTITY) || (r == LIBRARY);
       }
     }, new Action() {
       @Override
       public void execute() {
-        add(force());
+        add(FormatCommand.FORCE, 1);
       }
     });
     // Break line and indent after block entry.
-    preExecutor.put(new TokenPairMatcher() {
+    preExecutor.put(new TokenKindsMatcher() {
       @Override
-      public boolean matches(NodeToken left, NodeToken right) {
-        int l = left.kind;
+      public boolean matches(int l, int r) {
         return (l == BEGIN) || (l == THEN) || (l == ELSE);
       }
     }, new Action() {
       @Override
       public void execute() {
-        add(indent());
-        add(force());
+        add(FormatCommand.INDENT, 1);
+        add(FormatCommand.FORCE, 1);
       }
     });
     // Same for some tokens in POST executor.
-    postExecutor.put(new TokenPairMatcher() {
+    postExecutor.put(new TokenKindsMatcher() {
       @Override
-      public boolean matches(NodeToken left, NodeToken right) {
-        int l = left.kind, r = right.kind;
+      public boolean matches(int l, int r) {
         return (l != END) && (r == LOOP || r == GENERATE);
       }
     }, new Action() {
       @Override
       public void execute() {
-        add(indent());
-        add(force());
+        add(FormatCommand.INDENT, 1);
+        add(FormatCommand.FORCE, 1);
       }
     });
     // Reduce indentation when exiting block.
-    preExecutor.put(new TokenPairMatcher() {
+    preExecutor.put(new TokenKindsMatcher() {
       @Override
-      public boolean matches(NodeToken left, NodeToken right) {
-        int r = right.kind;
+      public boolean matches(int l, int r) {
         return (r == END) || (r == BEGIN) || (r == ELSE) || (r == ELSIF);
       }
     }, new Action() {
       @Override
       public void execute() {
-        add(outdent());
+        add(FormatCommand.OUTDENT, 1);
       }
     });
   }
 
   @Override
-  protected void add(FormatCommand cmd) {
-    if (cmd.getCommand() == FormatCommand.OUTDENT || cmd.getCommand() == FormatCommand.INDENT) {
-      int size = cmdQueue.size();
-      if (size > 0) {
-        FormatCommand last = cmdQueue.lastElement();
-        if (last.getCommand() == FormatCommand.FORCE && last.getNumCommands() == 1) {
-          cmdQueue.remove(size - 1);
-          super.add(cmd);
-          super.add(last);
-          return;
-        }
+  protected void add(int command, int numCommands) {
+    if (command == FormatCommand.OUTDENT || command == FormatCommand.INDENT) {
+      int last = cmdQueue.size() - 1;
+      if (last >= 0 && cmdQueue.command(last) == FormatCommand.FORCE &&
+          cmdQueue.numCommands(last) == 1) {
+        cmdQueue.remove(last);
+        super.add(command, numCommands);
+        super.add(FormatCommand.FORCE, 1);
+        return;
       }
     }
-    super.add(cmd);
+    super.add(command, numCommands);
   }
 
   protected final void ensureLineBreak() {
     for (int i = cmdQueue.size() - 1; i >= 0; --i) {
-      switch (cmdQueue.get(i).getCommand()) {
+      switch (cmdQueue.command(i)) {
         case FormatCommand.FORCE:
           return;
         case FormatCommand.INDENT:
@@ -110,13 +103,13 @@ public class LineBreakingTreeFormatter extends TokenSeparatingTreeFormatter {
           i = -1;
       }
     }
-    add(force());
+    add(FormatCommand.FORCE, 1);
   }
 
   @Override
   public void visit(NodeToken n) {
-    preExecutor.nextToken(n);
+    preExecutor.nextToken(n, hasSpecials(n));
     super.visit(n);
-    postExecutor.nextToken(n);
+    postExecutor.nextToken(n, hasSpecials(n));
   }
 }
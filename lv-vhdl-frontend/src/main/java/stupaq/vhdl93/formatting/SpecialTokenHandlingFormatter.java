@@ -1,9 +1,8 @@
 package stupaq.vhdl93.formatting;
 
-import java.util.Vector;
-
 import stupaq.vhdl93.VHDL93ParserConstants;
 import stupaq.vhdl93.ast.NodeToken;
+import stupaq.vhdl93.visitor.FormatCommand;
 
 public class SpecialTokenHandlingFormatter extends LineBreakingTreeFormatter
     implements VHDL93ParserConstants {
@@ -14,15 +13,15 @@ public class SpecialTokenHandlingFormatter extends LineBreakingTreeFormatter
   @Override
   public void visit(NodeToken n) {
     // Comment is the only special token we have.
-    Vector<NodeToken> specialTokens = n.specialTokens;
-    if (specialTokens != null) {
+    if (n.specialTokens != null) {
       for (NodeToken special : n.specialTokens) {
         super.visit(special);
-        add(force());
+        add(FormatCommand.FORCE, 1);
       }
     }
-    n.specialTokens = null;
+    // Special tokens are already placed, the token is formatted as if it had none.
+    skipSpecials(true);
     super.visit(n);
-    n.specialTokens = specialTokens;
+    skipSpecials(false);
   }
 }
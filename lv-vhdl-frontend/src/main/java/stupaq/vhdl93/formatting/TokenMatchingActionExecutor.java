@@ -2,19 +2,31 @@ package stupaq.vhdl93.formatting;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ForwardingMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.primitives.Ints;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
+import stupaq.vhdl93.VHDL93ParserConstants;
 import stupaq.vhdl93.ast.NodeToken;
 import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.Action;
 import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.TokenPairMatcher;
 
+/**
+ * Executes actions of all matchers which match a pair of consecutive tokens, in order of
+ * registration. Outcomes of {@link TokenKindsMatcher}s for all pairs of kinds are computed once per
+ * sequence of classes of matchers and shared by all executors with the same matchers.
+ */
 public class TokenMatchingActionExecutor extends ForwardingMultimap<TokenPairMatcher, Action> {
+  private static final int KINDS = VHDL93ParserConstants.tokenImage.length;
+  private static final ConcurrentMap<List<Class<?>>, KindsTable> TABLES = Maps.newConcurrentMap();
   private final Multimap<TokenPairMatcher, Action> delegate =
       Multimaps.newListMultimap(Maps.<TokenPairMatcher, Collection<Action>>newLinkedHashMap(),
           new Supplier<List<Action>>() {
@@ -24,22 +36,74 @@ public class TokenMatchingActionExecutor extends ForwardingMultimap<TokenPairMat
             }
           });
   private NodeToken lastToken;
+  private List<TokenPairMatcher> matchers;
+  private List<Collection<Action>> actions;
+  private KindsTable table;
 
   @Override
   protected Multimap<TokenPairMatcher, Action> delegate() {
     return delegate;
   }
 
+  @Override
+  public boolean put(TokenPairMatcher key, Action value) {
+    matchers = null;
+    return super.put(key, value);
+  }
+
+  @Override
+  public boolean putAll(TokenPairMatcher key, Iterable<? extends Action> values) {
+    matchers = null;
+    return super.putAll(key, values);
+  }
+
+  @Override
+  public boolean putAll(Multimap<? extends TokenPairMatcher, ? extends Action> multimap) {
+    matchers = null;
+    return super.putAll(multimap);
+  }
+
+  @Override
+  public Collection<Action> removeAll(Object key) {
+    matchers = null;
+    return super.removeAll(key);
+  }
+
+  @Override
+  public void clear() {
+    matchers = null;
+    super.clear();
+  }
+
   public void nextToken(NodeToken nextToken) {
+    nextToken(nextToken, nextToken.numSpecials() > 0);
+  }
+
+  /** Matches the token, or the first special token preceding it if requested and present. */
+  public void nextToken(NodeToken nextToken, boolean withSpecials) {
     NodeToken actualNextToken = nextToken;
-    if (nextToken.numSpecials() > 0) {
+    if (withSpecials && nextToken.numSpecials() > 0) {
       actualNextToken = nextToken.getSpecialAt(0);
     }
     if (lastToken != null) {
-      for (TokenPairMatcher matcher : delegate.keySet()) {
-        if (matcher.matches(lastToken, actualNextToken)) {
-          for (Action action : delegate.get(matcher)) {
-            action.execute();
+      if (matchers == null) {
+        compile();
+      }
+      // Tokens built from unknown images have no kind and are not covered by the table.
+      if (table == null || !KindsTable.covers(lastToken.kind, actualNextToken.kind)) {
+        for (int i = 0; i < matchers.size(); ++i) {
+          if (matchers.get(i).matches(lastToken, actualNextToken)) {
+            execute(i);
+          }
+        }
+      } else {
+        int generic = table.generic;
+        int mask = generic | table.kinds(lastToken.kind, actualNextToken.kind);
+        while (mask != 0) {
+          int i = Integer.numberOfTrailingZeros(mask);
+          mask &= mask - 1;
+          if ((generic & (1 << i)) == 0 || matchers.get(i).matches(lastToken, actualNextToken)) {
+            execute(i);
           }
         }
       }
@@ -47,6 +111,31 @@ public class TokenMatchingActionExecutor extends ForwardingMultimap<TokenPairMat
     lastToken = nextToken;
   }
 
+  private void execute(int matcher) {
+    for (Action action : actions.get(matcher)) {
+      action.execute();
+    }
+  }
+
+  private void compile() {
+    matchers = ImmutableList.copyOf(delegate.keySet());
+    actions = Lists.newArrayList();
+    List<Class<?>> classes = Lists.newArrayList();
+    for (TokenPairMatcher matcher : matchers) {
+      actions.add(delegate.get(matcher));
+      classes.add(matcher.getClass());
+    }
+    table = null;
+    if (matchers.size() <= Integer.SIZE) {
+      table = TABLES.get(classes);
+      if (table == null) {
+        KindsTable created = new KindsTable(matchers);
+        KindsTable existing = TABLES.putIfAbsent(classes, created);
+        table = existing == null ? created : existing;
+      }
+    }
+  }
+
   public interface TokenPairMatcher {
     public boolean matches(NodeToken left, NodeToken right);
   }
@@ -54,4 +143,60 @@ public class TokenMatchingActionExecutor extends ForwardingMultimap<TokenPairMat
   public interface Action {
     public void execute();
   }
+
+  /**
+   * A matcher which depends on kinds of tokens only. The outcome must not depend on the instance
+   * either, as it is computed once for all instances of the class.
+   */
+  public abstract static class TokenKindsMatcher implements TokenPairMatcher {
+    @Override
+    public final boolean matches(NodeToken left, NodeToken right) {
+      return matches(left.kind, right.kind);
+    }
+
+    public abstract boolean matches(int left, int right);
+  }
+
+  /** Bitmasks of matchers which match a pair of kinds, identical rows are shared. */
+  private static class KindsTable {
+    final int generic;
+    final int[][] rows = new int[KINDS][];
+
+    KindsTable(List<TokenPairMatcher> matchers) {
+      int generic = 0;
+      for (int i = 0; i < matchers.size(); ++i) {
+        if (!(matchers.get(i) instanceof TokenKindsMatcher)) {
+          generic |= 1 << i;
+        }
+      }
+      this.generic = generic;
+      Map<List<Integer>, int[]> distinctRows = Maps.newHashMap();
+      for (int left = 0; left < KINDS; ++left) {
+        int[] row = new int[KINDS];
+        for (int right = 0; right < KINDS; ++right) {
+          for (int i = 0; i < matchers.size(); ++i) {
+            TokenPairMatcher matcher = matchers.get(i);
+            if (matcher instanceof TokenKindsMatcher &&
+                ((TokenKindsMatcher) matcher).matches(left, right)) {
+              row[right] |= 1 << i;
+            }
+          }
+        }
+        int[] existing = distinctRows.get(Ints.asList(row));
+        if (existing == null) {
+          distinctRows.put(Ints.asList(row), row);
+          existing = row;
+        }
+        rows[left] = existing;
+      }
+    }
+
+    static boolean covers(int left, int right) {
+      return left >= 0 && left < KINDS && right >= 0 && right < KINDS;
+    }
+
+    int kinds(int left, int right) {
+      return rows[left][right];
+    }
+  }
 }
@@ -3,7 +3,7 @@ package stupaq.vhdl93.formatting;
 import stupaq.vhdl93.VHDL93ParserConstants;
 import stupaq.vhdl93.ast.NodeToken;
 import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.Action;
-import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.TokenPairMatcher;
+import stupaq.vhdl93.formatting.TokenMatchingActionExecutor.TokenKindsMatcher;
 import stupaq.vhdl93.visitor.FormatCommand;
 
 public class TokenSeparatingTreeFormatter extends UserDefinedTreeFormatter
@@ -13,9 +13,9 @@ public class TokenSeparatingTreeFormatter extends UserDefinedTreeFormatter
   public TokenSeparatingTreeFormatter(int indentAmt, int wrapWidth) {
     super(indentAmt, wrapWidth);
     // We default to at least one space between tokens.
-    preExecutor.put(new TokenPairMatcher() {
+    preExecutor.put(new TokenKindsMatcher() {
       @Override
-      public boolean matches(NodeToken left, NodeToken right) {
+      public boolean matches(int l, int r) {
         return true;
       }
     }, new Action() {
@@ -25,10 +25,9 @@ public class TokenSeparatingTreeFormatter extends UserDefinedTreeFormatter
       }
     });
     // But in some cases remove it.
-    preExecutor.put(new TokenPairMatcher() {
+    preExecutor.put(new TokenKindsMatcher() {
       @Override
-      public boolean matches(NodeToken left, NodeToken right) {
-        int l = left.kind, r = right.kind;
+      public boolean matches(int l, int r) {
         return (l == PERIOD || l == LPAREN || l == TICK) ||
             (r == SEMICOLON || r == COMMA || r == PERIOD || r == RPAREN || r == TICK);
       }
@@ -38,10 +37,9 @@ public class TokenSeparatingTreeFormatter extends UserDefinedTreeFormatter
         stripSpaces();
       }
     });
-    preExecutor.put(new TokenPairMatcher() {
+    preExecutor.put(new TokenKindsMatcher() {
       @Override
-      public boolean matches(NodeToken left, NodeToken right) {
-        int l = left.kind, r = right.kind;
+      public boolean matches(int l, int r) {
         return (l == MAP || l == basic_identifier || l == extended_identifier) && r == LPAREN;
       }
     }, new Action() {
@@ -51,10 +49,9 @@ public class TokenSeparatingTreeFormatter extends UserDefinedTreeFormatter
       }
     });
     // And in other enforce.
-    preExecutor.put(new TokenPairMatcher() {
+    preExecutor.put(new TokenKindsMatcher() {
       @Override
-      public boolean matches(NodeToken left, NodeToken right) {
-        int l = left.kind, r = right.kind;
+      public boolean matches(int l, int r) {
         return l == ASSIGN || r == ASSIGN || l == LE || r == LE || r == IS || l == ELSIF ||
             l == PROCESS;
       }
@@ -68,7 +65,7 @@ public class TokenSeparatingTreeFormatter extends UserDefinedTreeFormatter
 
   protected final void stripSpaces() {
     for (int i = cmdQueue.size() - 1; i >= 0; --i) {
-      switch (cmdQueue.get(i).getCommand()) {
+      switch (cmdQueue.command(i)) {
         case FormatCommand.SPACE:
           cmdQueue.remove(i);
         case FormatCommand.INDENT:
@@ -83,7 +80,7 @@ public class TokenSeparatingTreeFormatter extends UserDefinedTreeFormatter
 
   protected final void ensureWhiteSpace() {
     for (int i = cmdQueue.size() - 1; i >= 0; --i) {
-      switch (cmdQueue.get(i).getCommand()) {
+      switch (cmdQueue.command(i)) {
         case FormatCommand.INDENT:
         case FormatCommand.OUTDENT:
           break;
@@ -94,12 +91,12 @@ public class TokenSeparatingTreeFormatter extends UserDefinedTreeFormatter
           i = -1;
       }
     }
-    add(space());
+    add(FormatCommand.SPACE, 1);
   }
 
   @Override
   public void visit(NodeToken n) {
-    preExecutor.nextToken(n);
+    preExecutor.nextToken(n, hasSpecials(n));
     super.visit(n);
   }
 }
@@ -34,6 +34,16 @@ public abstract class UserDefinedTreeFormatter extends TreeFormatter {
     }
   }
 
+  /** Adds the command between consecutive elements of the list, does not allocate. */
+  protected final void processOptionalList(NodeListOptional list, int command, int numCommands) {
+    for (Enumeration<Node> e = list.elements(); e.hasMoreElements(); ) {
+      e.nextElement().accept(this);
+      if (e.hasMoreElements()) {
+        add(command, numCommands);
+      }
+    }
+  }
+
   @Override
   public final void visit(identifier n) {
     super.visit(n);
@@ -13,6 +13,7 @@ import stupaq.vhdl93.ast.generic_clause;
 import stupaq.vhdl93.ast.port_clause;
 import stupaq.vhdl93.ast.process_declarative_part;
 import stupaq.vhdl93.ast.process_statement;
+import stupaq.vhdl93.visitor.FormatCommand;
 
 public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
   private static final int INDENT_SPACES = 4, LINE_WIDTH = 80;
@@ -23,7 +24,7 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
 
   @Override
   public void visit(design_file n) {
-    processList(n.nodeList, force());
+    processList(n.nodeList, FormatCommand.FORCE, 1);
     n.nodeToken.accept(this);
   }
 
@@ -38,8 +39,8 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
     n.nodeToken.accept(this);
     n.entity_identifier.accept(this);
     n.nodeToken1.accept(this);
-    add(indent());
-    add(force());
+    add(FormatCommand.INDENT, 1);
+    add(FormatCommand.FORCE, 1);
     n.entity_header.accept(this);
     n.entity_declarative_part.accept(this);
     n.nodeOptional.accept(this);
@@ -56,8 +57,8 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
     n.nodeToken1.accept(this);
     n.entity_name.accept(this);
     n.nodeToken2.accept(this);
-    add(indent());
-    add(force());
+    add(FormatCommand.INDENT, 1);
+    add(FormatCommand.FORCE, 1);
     n.architecture_declarative_part.accept(this);
     n.nodeToken3.accept(this);
     n.architecture_statement_part.accept(this);
@@ -69,7 +70,7 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
 
   @Override
   public void visit(entity_declarative_part n) {
-    processOptionalList(null, n.nodeListOptional, force());
+    processOptionalList(n.nodeListOptional, FormatCommand.FORCE, 1);
   }
 
   @Override
@@ -77,8 +78,8 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
     n.nodeToken.accept(this);
     n.component_identifier.accept(this);
     n.nodeOptional.accept(this);
-    add(indent());
-    add(force());
+    add(FormatCommand.INDENT, 1);
+    add(FormatCommand.FORCE, 1);
     n.component_header.accept(this);
     n.nodeToken1.accept(this);
     n.nodeToken2.accept(this);
@@ -93,8 +94,8 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
     n.nodeToken.accept(this);
     n.nodeOptional2.accept(this);
     n.nodeOptional3.accept(this);
-    add(indent());
-    add(force());
+    add(FormatCommand.INDENT, 1);
+    add(FormatCommand.FORCE, 1);
     n.process_declarative_part.accept(this);
     n.nodeToken1.accept(this);
     n.process_statement_part.accept(this);
@@ -107,7 +108,7 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
 
   @Override
   public void visit(process_declarative_part n) {
-    processOptionalList(null, n.nodeListOptional, force());
+    processOptionalList(n.nodeListOptional, FormatCommand.FORCE, 1);
   }
 
   @Override
@@ -116,8 +117,8 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
     n.nodeToken.accept(this);
     n.expression.accept(this);
     n.nodeToken1.accept(this);
-    add(indent());
-    add(force());
+    add(FormatCommand.INDENT, 1);
+    add(FormatCommand.FORCE, 1);
     n.nodeList.accept(this);
     n.nodeToken2.accept(this);
     n.nodeToken3.accept(this);
@@ -130,9 +131,9 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
     n.target.accept(this);
     n.nodeToken.accept(this);
     n.options_.accept(this);
-    add(indent());
+    add(FormatCommand.INDENT, 1);
     n.conditional_waveforms.accept(this);
-    add(outdent());
+    add(FormatCommand.OUTDENT, 1);
     n.nodeToken1.accept(this);
   }
 
@@ -142,16 +143,16 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
     n.nodeToken.accept(this);
     n.instantiated_unit.accept(this);
     if (n.nodeOptional.present()) {
-      add(indent());
-      add(force());
+      add(FormatCommand.INDENT, 1);
+      add(FormatCommand.FORCE, 1);
       n.nodeOptional.accept(this);
-      add(outdent());
+      add(FormatCommand.OUTDENT, 1);
     }
     if (n.nodeOptional1.present()) {
-      add(indent());
-      add(force());
+      add(FormatCommand.INDENT, 1);
+      add(FormatCommand.FORCE, 1);
       n.nodeOptional1.accept(this);
-      add(outdent());
+      add(FormatCommand.OUTDENT, 1);
     }
     n.nodeToken1.accept(this);
   }
@@ -160,9 +161,9 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
   public void visit(port_clause n) {
     n.nodeToken.accept(this);
     n.nodeToken1.accept(this);
-    add(indent());
+    add(FormatCommand.INDENT, 1);
     n.port_list.accept(this);
-    add(outdent());
+    add(FormatCommand.OUTDENT, 1);
     n.nodeToken2.accept(this);
     n.nodeToken3.accept(this);
   }
@@ -171,9 +172,9 @@ public class VHDLTreeFormatter extends SpecialTokenHandlingFormatter {
   public void visit(generic_clause n) {
     n.nodeToken.accept(this);
     n.nodeToken1.accept(this);
-    add(indent());
+    add(FormatCommand.INDENT, 1);
     n.generic_list.accept(this);
-    add(outdent());
+    add(FormatCommand.OUTDENT, 1);
     n.nodeToken2.accept(this);
     n.nodeToken3.accept(this);
   }
@@ -0,0 +1,63 @@
+package stupaq.vhdl93.formatting;
+
+import com.google.common.base.Throwables;
+
+import java.io.IOException;
+
+import stupaq.vhdl93.ast.Node;
+import stupaq.vhdl93.ast.NodeToken;
+
+/**
+ * Formats and prints the tree in a single pass, the output is the same as if the tree was formatted
+ * with {@link VHDLTreeFormatter} and then printed with the TreeDumper, but the tree is not modified
+ * and can be printed concurrently by many printers.
+ */
+public class VHDLTreePrinter extends VHDLTreeFormatter {
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+  private final Appendable out;
+  private int outLine = 1;
+  private int outColumn = 1;
+
+  public VHDLTreePrinter(Appendable out) {
+    this.out = out;
+  }
+
+  public static String print(Node n) {
+    StringBuilder builder = new StringBuilder();
+    n.accept(new VHDLTreePrinter(builder));
+    return builder.toString();
+  }
+
+  @Override
+  protected void tokenPlaced(NodeToken n, int beginLine, int beginColumn, int endLine,
+      int endColumn) {
+    if (beginLine < outLine || beginLine == outLine && beginColumn < outColumn) {
+      throw new IllegalStateException("Token: " + n.tokenImage + " placed before the cursor.");
+    }
+    try {
+      // This is how the TreeDumper moves the cursor.
+      if (outLine < beginLine) {
+        outColumn = 1;
+        for (; outLine < beginLine; ++outLine) {
+          out.append(LINE_SEPARATOR);
+        }
+      }
+      for (; outColumn < beginColumn; ++outColumn) {
+        out.append(' ');
+      }
+      String image = n.tokenImage;
+      for (int i = 0; i < image.length(); ++i) {
+        char c = image.charAt(i);
+        if (c == '\n') {
+          ++outLine;
+          outColumn = 1;
+        } else {
+          ++outColumn;
+        }
+        out.append(c);
+      }
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+}
@@ -1,32 +1,51 @@
 package stupaq.vhdl93.visitor;
 
+/**
+ * A format command as a mutable object, formatters in this package queue commands through {@link
+ * TreeFormatter#add(int, int)} instead, which does not allocate.
+ */
 public class FormatCommand {
   public static final int FORCE = 0;
   public static final int INDENT = 1;
   public static final int OUTDENT = 2;
   public static final int SPACE = 3;
-
+  /** Counts are packed next to commands in {@link FormatCommandQueue}. */
+  static final int MAX_NUM_COMMANDS = Integer.MAX_VALUE >>> FormatCommandQueue.COMMAND_BITS;
   private int command;
   private int numCommands;
 
   FormatCommand(int command, int numCommands) {
-    this.command = command;
-    this.numCommands = numCommands;
+    setCommand(command);
+    setNumCommands(numCommands);
   }
 
   public int getCommand() {
     return command;
   }
 
+  public void setCommand(int i) {
+    command = checkCommand(i);
+  }
+
   public int getNumCommands() {
     return numCommands;
   }
 
-  public void setCommand(int i) {
-    command = i;
+  public void setNumCommands(int i) {
+    numCommands = checkNumCommands(i);
   }
 
-  public void setNumCommands(int i) {
-    numCommands = i;
+  static int checkCommand(int command) {
+    if (command < FORCE || command > SPACE) {
+      throw new TreeFormatterException("Invalid format command: " + command);
+    }
+    return command;
+  }
+
+  static int checkNumCommands(int numCommands) {
+    if (numCommands < 0 || numCommands > MAX_NUM_COMMANDS) {
+      throw new TreeFormatterException("Invalid number of format commands: " + numCommands);
+    }
+    return numCommands;
   }
 }
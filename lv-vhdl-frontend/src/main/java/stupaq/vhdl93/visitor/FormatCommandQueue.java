@@ -0,0 +1,111 @@
+package stupaq.vhdl93.visitor;
+
+import com.google.common.collect.Iterators;
+
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Commands waiting for the next token, each one packed into a single int.  Commands queued with
+ * {@link #add(int, int)} and read with {@link #command(int)} and {@link #numCommands(int)} are
+ * never allocated.  Methods of the Vector this queue replaces are kept for compatibility, they
+ * copy commands when adding and allocate a new command for every one read.  Not thread-safe, every
+ * formatter has its own queue.
+ */
+public final class FormatCommandQueue implements Iterable<FormatCommand> {
+  static final int COMMAND_BITS = 2;
+  private static final int COMMAND_MASK = (1 << COMMAND_BITS) - 1;
+  private int[] commands = new int[16];
+  private int size = 0;
+
+  FormatCommandQueue() {
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int command(int index) {
+    return commands[checkIndex(index)] & COMMAND_MASK;
+  }
+
+  public int numCommands(int index) {
+    return commands[checkIndex(index)] >>> COMMAND_BITS;
+  }
+
+  public FormatCommand get(int index) {
+    return new FormatCommand(command(index), numCommands(index));
+  }
+
+  public FormatCommand elementAt(int index) {
+    return get(index);
+  }
+
+  public FormatCommand firstElement() {
+    return get(0);
+  }
+
+  public FormatCommand lastElement() {
+    return get(size - 1);
+  }
+
+  public Enumeration<FormatCommand> elements() {
+    return new Enumeration<FormatCommand>() {
+      int next = 0;
+
+      @Override
+      public boolean hasMoreElements() {
+        return next < size;
+      }
+
+      @Override
+      public FormatCommand nextElement() {
+        if (next >= size) {
+          throw new NoSuchElementException();
+        }
+        return get(next++);
+      }
+    };
+  }
+
+  @Override
+  public Iterator<FormatCommand> iterator() {
+    return Iterators.forEnumeration(elements());
+  }
+
+  public void add(int command, int numCommands) {
+    FormatCommand.checkCommand(command);
+    FormatCommand.checkNumCommands(numCommands);
+    if (size == commands.length) {
+      commands = Arrays.copyOf(commands, size * 2);
+    }
+    commands[size++] = command | numCommands << COMMAND_BITS;
+  }
+
+  public void addElement(FormatCommand cmd) {
+    add(cmd.getCommand(), cmd.getNumCommands());
+  }
+
+  public void remove(int index) {
+    checkIndex(index);
+    System.arraycopy(commands, index + 1, commands, index, size - index - 1);
+    --size;
+  }
+
+  public void removeAllElements() {
+    size = 0;
+  }
+
+  private int checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return index;
+  }
+}
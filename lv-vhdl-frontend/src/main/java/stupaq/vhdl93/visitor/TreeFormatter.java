@@ -1,7 +1,6 @@
 package stupaq.vhdl93.visitor;
 
 import java.util.Enumeration;
-import java.util.Vector;
 
 import stupaq.vhdl93.ast.Node;
 import stupaq.vhdl93.ast.NodeListInterface;
@@ -16,13 +15,16 @@ import stupaq.vhdl93.ast.NodeToken;
  * print" your tree.
  */
 public class TreeFormatter extends DepthFirstVisitor {
-  protected Vector<FormatCommand> cmdQueue = new Vector<>();
+  protected final FormatCommandQueue cmdQueue = new FormatCommandQueue();
   private final boolean lineWrap;
   private final int wrapWidth;
   private final int indentAmt;
   private int curLine = 1;
   private int curColumn = 1;
   private int curIndent = 0;
+  private int placedEndLine;
+  private int placedEndColumn;
+  private boolean skipSpecials = false;
 
   /**
    * The default constructor assumes an indentation amount of 3 spaces and no line-wrap.  You may
@@ -51,14 +53,25 @@ public class TreeFormatter extends DepthFirstVisitor {
    * the list (but not after the last node).
    */
   protected void processList(NodeListInterface n) {
-    processList(n, null);
+    for (Enumeration<Node> e = n.elements(); e.hasMoreElements(); ) {
+      e.nextElement().accept(this);
+    }
   }
 
   protected void processList(NodeListInterface n, FormatCommand cmd) {
+    if (cmd == null) {
+      processList(n);
+    } else {
+      processList(n, cmd.getCommand(), cmd.getNumCommands());
+    }
+  }
+
+  /** Same as {@link #processList(NodeListInterface, FormatCommand)}, but does not allocate. */
+  protected void processList(NodeListInterface n, int command, int numCommands) {
     for (Enumeration<Node> e = n.elements(); e.hasMoreElements(); ) {
       e.nextElement().accept(this);
-      if (cmd != null && e.hasMoreElements()) {
-        cmdQueue.addElement(cmd);
+      if (e.hasMoreElements()) {
+        cmdQueue.add(command, numCommands);
       }
     }
   }
@@ -116,7 +129,27 @@ public class TreeFormatter extends DepthFirstVisitor {
    * in the tree is visited.
    */
   protected void add(FormatCommand cmd) {
-    cmdQueue.addElement(cmd);
+    add(cmd.getCommand(), cmd.getNumCommands());
+  }
+
+  /**
+   * Adds a command given by one of the constants of {@link FormatCommand} and its count, this is
+   * what {@link #add(FormatCommand)} delegates to and it does not allocate.
+   */
+  protected void add(int command, int numCommands) {
+    cmdQueue.add(command, numCommands);
+  }
+
+  /**
+   * When set, special tokens preceding visited tokens are neither placed nor taken into account, as
+   * if visited tokens had none.  Use this if special tokens are handled elsewhere.
+   */
+  protected final void skipSpecials(boolean skip) {
+    skipSpecials = skip;
+  }
+
+  protected final boolean hasSpecials(NodeToken n) {
+    return !skipSpecials && n.numSpecials() > 0;
   }
 
   /**
@@ -128,23 +161,23 @@ public class TreeFormatter extends DepthFirstVisitor {
    * is not the behavior you want from special tokens, feel free to modify this method.
    */
   public void visit(NodeToken n) {
-    for (Enumeration<FormatCommand> e = cmdQueue.elements(); e.hasMoreElements(); ) {
-      FormatCommand cmd = e.nextElement();
-      switch (cmd.getCommand()) {
+    for (int i = 0; i < cmdQueue.size(); ++i) {
+      int numCommands = cmdQueue.numCommands(i);
+      switch (cmdQueue.command(i)) {
         case FormatCommand.FORCE:
-          curLine += cmd.getNumCommands();
+          curLine += numCommands;
           curColumn = curIndent + 1;
           break;
         case FormatCommand.INDENT:
-          curIndent += indentAmt * cmd.getNumCommands();
+          curIndent += indentAmt * numCommands;
           break;
         case FormatCommand.OUTDENT:
           if (curIndent >= indentAmt) {
-            curIndent -= indentAmt * cmd.getNumCommands();
+            curIndent -= indentAmt * numCommands;
           }
           break;
         case FormatCommand.SPACE:
-          curColumn += cmd.getNumCommands();
+          curColumn += numCommands;
           break;
         default:
           throw new TreeFormatterException("Invalid value in command queue.");
@@ -154,41 +187,41 @@ public class TreeFormatter extends DepthFirstVisitor {
     cmdQueue.removeAllElements();
 
     // Handle all special tokens preceding this NodeToken
-    if (n.numSpecials() > 0) {
-      for (Enumeration<NodeToken> e = n.specialTokens.elements(); e.hasMoreElements(); ) {
-        NodeToken special = e.nextElement();
-
+    if (hasSpecials(n)) {
+      for (NodeToken special : n.specialTokens) {
         // -Place the token.
         // -Move cursor to next line after the special token.
         // -Don't update curColumn--want to keep current indent level.
         placeToken(special, curLine, curColumn);
-        curLine = special.endLine + 1;
+        curLine = placedEndLine + 1;
       }
     }
 
     placeToken(n, curLine, curColumn);
-    curLine = n.endLine;
-    curColumn = n.endColumn;
+    curLine = placedEndLine;
+    curColumn = placedEndColumn;
   }
 
   /**
-   * Inserts token location (beginLine, beginColumn, endLine, endColumn) information into the
-   * NodeToken.  Takes into account line-wrap. Does not update curLine and curColumn.
+   * Computes token location (beginLine, beginColumn, endLine, endColumn) and passes it to {@link
+   * #tokenPlaced(NodeToken, int, int, int, int)}.  Takes into account line-wrap. Does not update
+   * curLine and curColumn.
    */
   private void placeToken(NodeToken n, int line, int column) {
     int length = n.tokenImage.length();
+    int beginLine, beginColumn;
 
     // Find beginning of token.  Only line-wrap for single-line tokens
     if (!lineWrap || n.tokenImage.indexOf('\n') != -1 ||
         column + length <= wrapWidth) {
-      n.beginColumn = column;
+      beginColumn = column;
     } else {
       ++line;
       column = curIndent + indentAmt + 1;
-      n.beginColumn = column;
+      beginColumn = column;
     }
 
-    n.beginLine = line;
+    beginLine = line;
 
     // Find end of token; don't count \n if it's the last character
     for (int i = 0; i < length; ++i) {
@@ -200,8 +233,21 @@ public class TreeFormatter extends DepthFirstVisitor {
       }
     }
 
-    n.endLine = line;
-    n.endColumn = column;
+    placedEndLine = line;
+    placedEndColumn = column;
+    tokenPlaced(n, beginLine, beginColumn, line, column);
+  }
+
+  /**
+   * Receives location of every token in the formatted output, in order of appearance.  Inserts the
+   * location into the NodeToken, so that the TreeDumper can print it.
+   */
+  protected void tokenPlaced(NodeToken n, int beginLine, int beginColumn, int endLine,
+      int endColumn) {
+    n.beginLine = beginLine;
+    n.beginColumn = beginColumn;
+    n.endLine = endLine;
+    n.endColumn = endColumn;
   }
 }
 
@@ -12,6 +12,11 @@ object ExceptionPrinter {
       case _: TranslationException =>
         stream println "Translation error encountered:"
         stream println ex.getMessage
+        // Stack traces of other exceptions include suppressed ones already.
+        for (suppressed <- ex.getSuppressed) {
+          stream println "Suppressed:"
+          suppressed printStackTrace stream
+        }
       case _ =>
         ex printStackTrace stream
     }
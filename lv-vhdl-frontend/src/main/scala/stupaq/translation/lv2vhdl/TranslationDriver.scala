@@ -2,24 +2,56 @@ package stupaq.translation.lv2vhdl
 
 import java.nio.file.Paths
 
+import com.google.common.base.Optional
+import org.slf4j.LoggerFactory
 import stupaq.labview.VIPath
-import stupaq.translation.ExceptionPrinter
+import stupaq.translation.{Configuration, ExceptionPrinter}
+import stupaq.translation.parsing.SnippetParser
 import stupaq.translation.project.{LVProjectReader, VHDLProjectWriter}
 
 import scala.collection.JavaConverters._
 
 object TranslationDriver {
+  private val LOGGER = LoggerFactory getLogger getClass
 
   def main(args: Array[String]) {
     try {
       if (args.length >= 2) {
         val roots = args.toStream dropRight 1 map (new VIPath(_))
         val projectFrom = new LVProjectReader(roots.asJava)
-        val projectTo = new VHDLProjectWriter(Paths get args.last)
-        val context = new TranslationContext(projectFrom, projectTo)
-        for (path <- projectFrom.asScala) {
-          context translate path
+        val destination = Paths get args.last
+        val cacheDirectory = destination resolve Configuration.getCacheDirectory
+        val interfaces = if (Configuration.getInterfacesCache) {
+          Optional of new InterfaceDeclarationStore(cacheDirectory)
+        } else {
+          Optional.absent[InterfaceDeclarationStore]()
         }
+        val projectTo = new VHDLProjectWriter(destination)
+        try {
+          val context = new TranslationContext(projectFrom, projectTo,
+            Configuration.getTranslationThreads, interfaces)
+          try {
+            context prefetch roots.asJava
+            for (path <- projectFrom.asScala) {
+              context translate path
+            }
+          } finally {
+            context close()
+          }
+        } catch {
+          case e: Throwable =>
+            // Units translated so far are still written, but failing to do so must not hide the
+            // original failure.
+            try {
+              projectTo close()
+            } catch {
+              case suppressed: Exception => e addSuppressed suppressed
+            }
+            throw e
+        }
+        // Units are buffered, nothing reaches the disk before this point.
+        projectTo close()
+        LOGGER debug("Snippets cache: {}", SnippetParser.cacheStats())
       } else {
         println("usage: <filename1> <filename2> ... <destination>")
       }
@@ -1,13 +1,12 @@
 package stupaq.translation.semantic
 
-import java.io.StringReader
 import java.util
 
 import com.google.common.base.Optional
 import stupaq.translation.naming.IOReference
+import stupaq.translation.parsing.{Production, SnippetParser}
 import stupaq.vhdl93.ast.Builders.sequence
 import stupaq.vhdl93.ast.{SimpleNode, identifier}
-import stupaq.vhdl93.{ParseException, VHDL93ParserTotal}
 
 import scala.annotation.tailrec
 
@@ -37,14 +36,7 @@ object ExpressionClassifier {
 
   def asIdentifier(n: SimpleNode): Optional[identifier] = {
     val rep = unwrapParentheses(n representation())
-    try {
-      val parser = new VHDL93ParserTotal(new StringReader(rep))
-      val id = parser identifier()
-      parser eof()
-      Optional of id
-    } catch {
-      case ignored: ParseException => Optional absent()
-    }
+    SnippetParser tryParse(rep, Production.IDENTIFIER)
   }
 }
 
@@ -1,12 +1,12 @@
 package stupaq.translation.vhdl2lv
 
-import java.io.FileInputStream
 import java.nio.file.Paths
 
-import stupaq.translation.ExceptionPrinter
-import stupaq.translation.project.LVProject
-import stupaq.vhdl93.VHDL93ParserTotal
-import stupaq.vhdl93.ast.{NodeList, design_file}
+import com.google.common.base.Optional
+import stupaq.translation.naming.IdentifierPool
+import stupaq.translation.parsing.{DesignFilesParser, ParsedFilesCache}
+import stupaq.translation.project.{LVProject, ProjectManifest}
+import stupaq.translation.{Configuration, ExceptionPrinter}
 
 import scala.collection.JavaConverters._
 
@@ -15,15 +15,40 @@ object TranslationDriver {
   def main(args: Array[String]) {
     try {
       if (args.length >= 2) {
-        val units = args.toStream dropRight 1 map (new FileInputStream(_)) flatMap
-                    (new VHDL93ParserTotal(_).design_file().nodeList.nodes.asScala)
-        val list = new NodeList()
-        for (unit <- units) {
-          list addNode unit
+        val files = args.toList dropRight 1 map (Paths get _)
+        val destination = Paths get args.last
+        // Names of this translation, the pool is bound for as long as the translation runs.
+        val binding = new IdentifierPool().bind()
+        try {
+          val cache = if (Configuration.getParsingCache) {
+            Optional of new ParsedFilesCache(destination resolve Configuration.getCacheDirectory)
+          } else {
+            Optional.absent[ParsedFilesCache]()
+          }
+          val parser = new DesignFilesParser(cache)
+          val root = if (Configuration.getParsingRecover) {
+            // Units without errors are translated anyway, all errors are reported in one go.
+            val report = parser parseRecovering files.asJava
+            if (report.hasErrors) {
+              System.err println report
+            }
+            report.root
+          } else {
+            parser parse files.asJava
+          }
+          val project = new LVProject(destination)
+          val manifest = if (Configuration.getIncremental) {
+            Optional of new ProjectManifest(destination)
+          } else {
+            Optional.absent[ProjectManifest]()
+          }
+          root accept new DesignFileEmitter(project, manifest)
+          for (m <- manifest.asSet.asScala) {
+            m.save()
+          }
+        } finally {
+          binding close()
         }
-        val root = new design_file(list)
-        val project = new LVProject(Paths get args.last)
-        root accept new DesignFileEmitter(project)
       } else {
         println("usage: <filename1> <filename2> ... <destination>")
       }
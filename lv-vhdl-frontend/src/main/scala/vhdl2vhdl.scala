@@ -1,9 +1,9 @@
-import java.io.FileInputStream
+import java.nio.file.Paths
 
 import stupaq.translation.ExceptionPrinter
 import stupaq.translation.semantic.FlattenNestedListsVisitor
-import stupaq.vhdl93.VHDL93ParserTotal
-import stupaq.vhdl93.formatting.VHDLTreeFormatter
+import stupaq.vhdl93.CharBufferCharStream
+import stupaq.vhdl93.formatting.VHDLTreePrinter
 import stupaq.vhdl93.visitor.TreeDumper
 
 object vhdl2vhdl {
@@ -11,15 +11,13 @@ object vhdl2vhdl {
   def main(args: Array[String]) {
     try {
       if (args.length == 1) {
-        val file = new FileInputStream(args(0))
-        val parser = new VHDL93ParserTotal(file)
+        val parser = CharBufferCharStream.decode(Paths.get(args(0))).parser()
         val root = parser.design_file()
         root.accept(new TreeDumper(System.out))
         println()
         println(new String(new Array[Char](40)).replace('\u0000', '-'))
         root.accept(new FlattenNestedListsVisitor())
-        root.accept(new VHDLTreeFormatter())
-        root.accept(new TreeDumper(System.out))
+        root.accept(new VHDLTreePrinter(System.out))
         println()
       } else {
         println("usage: filename")